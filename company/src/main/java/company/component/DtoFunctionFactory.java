@@ -4,13 +4,17 @@ import company.device.dto.*;
 import company.device.dto.function.*;
 import company.device.entity.Brand;
 import company.device.entity.Device;
+import company.device.repository.api.DeviceFilter;
 import company.user.dto.GetUserResponse;
 import company.user.dto.GetUsersResponse;
+import company.user.dto.PostUsersRequest;
 import company.user.dto.PutUserRequest;
 import company.user.dto.function.RequestToUserFunction;
+import company.user.dto.function.RequestToUsersFunction;
 import company.user.dto.function.UpdateUserPasswordWithRequestFunction;
 import company.user.dto.function.UpdateUserWithRequestFunction;
 import company.user.dto.function.UserToResponseFunction;
+import company.user.dto.function.UserToUsersEntryFunction;
 import company.user.dto.function.UsersToResponseFunction;
 import company.user.entity.User;
 
@@ -40,6 +44,15 @@ public class DtoFunctionFactory {
         return new DevicesToResponseFunction();
     }
 
+    /**
+     * Returns a function to convert a single {@link Device} to entry of {@link GetDevicesResponse}.
+     *
+     * @return DeviceToDevicesEntryFunction instance
+     */
+    public DeviceToDevicesEntryFunction deviceToDevicesEntry() {
+        return new DeviceToDevicesEntryFunction();
+    }
+
     /**
      * Returns a function to convert a single {@link Brand} to {@link GetBrandResponse}.
      *
@@ -58,6 +71,15 @@ public class DtoFunctionFactory {
         return new BrandsToResponseFunction();
     }
 
+    /**
+     * Returns a function to convert a single {@link Brand} to entry of {@link GetBrandsResponse}.
+     *
+     * @return BrandToBrandsEntryFunction instance
+     */
+    public BrandToBrandsEntryFunction BrandToBrandsEntry() {
+        return new BrandToBrandsEntryFunction();
+    }
+
     /**
      * Returns a function to convert a {@link PutDeviceRequest} to a {@link Device}.
      *
@@ -67,6 +89,24 @@ public class DtoFunctionFactory {
         return new RequestToDeviceFunction();
     }
 
+    /**
+     * Returns a function to convert a {@link PostDevicesRequest} to a list of {@link Device}.
+     *
+     * @return RequestToDevicesFunction instance
+     */
+    public RequestToDevicesFunction requestToDevices() {
+        return new RequestToDevicesFunction();
+    }
+
+    /**
+     * Returns a function to convert a {@link GetDevicesRequest} to a {@link DeviceFilter}.
+     *
+     * @return RequestToDeviceFilterFunction instance
+     */
+    public RequestToDeviceFilterFunction requestToDeviceFilter() {
+        return new RequestToDeviceFilterFunction();
+    }
+
     /**
      * Returns a function to update a {@link Device}.
      *
@@ -85,6 +125,15 @@ public class DtoFunctionFactory {
         return new RequestToUserFunction();
     }
 
+    /**
+     * Returns a function to convert a {@link PostUsersRequest} to a list of {@link User}.
+     *
+     * @return RequestToUsersFunction instance
+     */
+    public RequestToUsersFunction requestToUsers() {
+        return new RequestToUsersFunction();
+    }
+
     /**
      * Returns a function to update a {@link User}.
      *
@@ -112,6 +161,15 @@ public class DtoFunctionFactory {
         return new UsersToResponseFunction();
     }
 
+    /**
+     * Returns a function to convert a single {@link User} to entry of {@link GetUsersResponse}.
+     *
+     * @return UserToUsersEntryFunction instance
+     */
+    public UserToUsersEntryFunction userToUsersEntry() {
+        return new UserToUsersEntryFunction();
+    }
+
     /**
      * Returns a function to convert a single {@link User} to {@link GetUserResponse}.
      *
@@ -1,21 +1,60 @@
 package company.configuration.listener;
 
+import company.datastore.component.DataStorePersistence;
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
 import company.datastore.component.DataStore;
+import company.datastore.component.EntityCopyStrategies;
 import company.serialization.component.CloningUtility;
+import lombok.SneakyThrows;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Listener started automatically on servlet context initialized. Creates an instance of datasource and puts it in the
- * application (servlet) context.
+ * application (servlet) context. When data directory is configured the datasource is recovered from it and all
+ * changes are persisted there. Snapshot is decoded and indexes are built in parallel on a dedicated fork-join pool.
  */
 @WebListener//using annotation does not allow configuring order
 public class CreateDataSource implements ServletContextListener {
 
+    /**
+     * Persistence of the datasource, null when data is kept only in memory.
+     */
+    private DataStorePersistence persistence;
+
     @Override
+    @SneakyThrows
     public void contextInitialized(ServletContextEvent event) {
-        event.getServletContext().setAttribute("datasource", new DataStore(new CloningUtility()));
+        ServletContext context = event.getServletContext();
+        boolean immutableEntities = Boolean.parseBoolean(context.getInitParameter("immutableEntities"));
+        DataStore dataStore = new DataStore(
+                EntityCopyStrategies.register(new CloningUtility()),
+                immutableEntities
+        );
+        String dataDirectory = context.getInitParameter("dataDirectory");
+        if (dataDirectory != null && !dataDirectory.isBlank()) {
+            String snapshotInterval = context.getInitParameter("snapshotInterval");
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                persistence = new DataStorePersistence(dataStore, Path.of(dataDirectory), pool);
+                persistence.open(Duration.ofSeconds(snapshotInterval != null ? Long.parseLong(snapshotInterval) : 60));
+            } finally {
+                pool.shutdown();//needed only for loading
+            }
+        }
+        context.setAttribute("datasource", dataStore);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (persistence != null) {
+            persistence.close();
+        }
     }
 
 }
@@ -12,35 +12,173 @@ import company.device.repository.api.BrandRepository;
 import company.device.repository.memory.DeviceInMemoryRepository;
 import company.device.repository.memory.BrandInMemoryRepository;
 import company.device.service.BrandService;
+import company.crypto.component.PasswordHashingService;
 import company.crypto.component.Pbkdf2PasswordHash;
+import company.crypto.component.TokenStore;
 import company.datastore.component.DataStore;
 import company.user.repository.api.UserRepository;
 import company.user.repository.memory.UserInMemoryRepository;
 import company.user.service.UserService;
+import company.device.repository.jdbc.BrandJdbcRepository;
+import company.device.repository.jdbc.DeviceJdbcRepository;
+import company.repository.jdbc.JdbcSupport;
+import company.user.repository.jdbc.UserJdbcRepository;
+import company.device.repository.cache.BrandCachingRepository;
+import company.device.repository.cache.DeviceCachingRepository;
+import company.repository.cache.CachingRepository;
+import company.user.repository.cache.UserCachingRepository;
+import lombok.extern.java.Log;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
 
 /**
  * Listener started automatically on servlet context initialized. Creates an instance of services (business layer) and
  * puts them in the application (servlet) context.
  */
+@Log
 @WebListener//using annotation does not allow configuring order
 public class CreateServices implements ServletContextListener {
 
+    /**
+     * Caching repositories by cached collection name, empty when caching is disabled.
+     */
+    private Map<String, CachingRepository<?, ?>> caches = Map.of();
+
+    /**
+     * Name under which the password hashing pool is registered in the platform MBean server.
+     */
+    private static final String PASSWORD_HASHING_MBEAN = "company:type=PasswordHashing";
+
+    /**
+     * Pool hashing users' passwords.
+     */
+    private PasswordHashingService passwordHashing;
+
     @Override
     public void contextInitialized(ServletContextEvent event) {
-        DataStore dataSource = (DataStore) event.getServletContext().getAttribute("datasource");
+        ServletContext servletContext = event.getServletContext();
 
-        UserRepository userRepository = new UserInMemoryRepository(dataSource);
-        BrandRepository brandRepository = new BrandInMemoryRepository(dataSource);
-        DeviceRepository deviceRepository = new DeviceInMemoryRepository(dataSource);
+        UserRepository userRepository;
+        BrandRepository brandRepository;
+        DeviceRepository deviceRepository;
+        if ("jdbc".equals(servletContext.getInitParameter("repository"))) {
+            JdbcSupport jdbc = new JdbcSupport(lookup(servletContext.getInitParameter("dataSourceName")));
+            jdbc.createSchema(BrandJdbcRepository.COLLECTION, UserJdbcRepository.COLLECTION,
+                    DeviceJdbcRepository.COLLECTION);
+            userRepository = new UserJdbcRepository(jdbc);
+            brandRepository = new BrandJdbcRepository(jdbc);
+            deviceRepository = new DeviceJdbcRepository(jdbc);
+        } else {
+            DataStore dataSource = (DataStore) servletContext.getAttribute("datasource");
+            userRepository = new UserInMemoryRepository(dataSource);
+            brandRepository = new BrandInMemoryRepository(dataSource);
+            deviceRepository = new DeviceInMemoryRepository(dataSource);
+        }
+
+        String entityCacheSize = servletContext.getInitParameter("entityCacheSize");
+        int cacheSize = entityCacheSize != null ? Integer.parseInt(entityCacheSize) : 0;
+        if (cacheSize > 0 && !Boolean.parseBoolean(servletContext.getInitParameter("immutableEntities"))) {
+            log.warning("Entity cache disabled, it shares entities between callers and requires immutableEntities");
+            cacheSize = 0;
+        }
+        if (cacheSize > 0) {
+            UserCachingRepository users = new UserCachingRepository(userRepository, cacheSize);
+            BrandCachingRepository brands = new BrandCachingRepository(brandRepository, cacheSize);
+            DeviceCachingRepository devices = new DeviceCachingRepository(deviceRepository, cacheSize);
+            users.addDependent(devices);//devices embed their owners and brands
+            brands.addDependent(devices);
+            caches = Map.of("users", users, "brands", brands, "devices", devices);
+            userRepository = users;
+            brandRepository = brands;
+            deviceRepository = devices;
+        }
 
-        ServletContext servletContext = event.getServletContext();
         Path path = Path.of(servletContext.getInitParameter("imagePath"));
+        Path devicePath = Path.of(servletContext.getInitParameter("deviceImagePath"));
+
+        String hashingThreads = servletContext.getInitParameter("passwordHashingThreads");
+        String hashingQueue = servletContext.getInitParameter("passwordHashingQueue");
+        String hashingLatency = servletContext.getInitParameter("passwordHashingLatency");
+        int iterations = Pbkdf2PasswordHash.DEFAULT_ITERATIONS;
+        if (hashingLatency != null && Integer.parseInt(hashingLatency) > 0) {
+            iterations = Pbkdf2PasswordHash.calibrate(Duration.ofMillis(Integer.parseInt(hashingLatency)));
+            log.info("Passwords hashed with %d iterations".formatted(iterations));
+        }
+        passwordHashing = new PasswordHashingService(new Pbkdf2PasswordHash(iterations),
+                hashingThreads != null ? Integer.parseInt(hashingThreads) : Runtime.getRuntime().availableProcessors(),
+                hashingQueue != null ? Integer.parseInt(hashingQueue) : 64);
+        register(passwordHashing);
+
+        String tokenTtl = servletContext.getInitParameter("authTokenTtl");
+        String tokenLimit = servletContext.getInitParameter("authTokenLimit");
+        String tokensPerUser = servletContext.getInitParameter("authTokensPerUser");
+        TokenStore<UUID> sessions = new TokenStore<>(
+                Duration.ofSeconds(tokenTtl != null ? Long.parseLong(tokenTtl) : 1800),
+                tokenLimit != null ? Integer.parseInt(tokenLimit) : 100_000,
+                tokensPerUser != null ? Integer.parseInt(tokensPerUser) : 10);
 
-        event.getServletContext().setAttribute("userService", new UserService(userRepository, new SimpleFileRepository(String.valueOf(path)) ,new Pbkdf2PasswordHash()));
-        event.getServletContext().setAttribute("deviceService", new DeviceService(deviceRepository, brandRepository, userRepository));
+        event.getServletContext().setAttribute("userService", new UserService(userRepository, new SimpleFileRepository(String.valueOf(path)), passwordHashing, sessions));
+        event.getServletContext().setAttribute("deviceService", new DeviceService(deviceRepository, brandRepository, userRepository, new SimpleFileRepository(String.valueOf(devicePath))));
         event.getServletContext().setAttribute("brandService", new BrandService(brandRepository));
     }
 
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        caches.forEach((name, cache) -> log.info("Cache of %s: %s".formatted(name, cache.statistics())));
+        if (passwordHashing != null) {
+            log.info("Password hashing: %s".formatted(passwordHashing.statistics()));
+            unregister();
+            passwordHashing.close();
+        }
+    }
+
+    /**
+     * Registers the password hashing pool in the platform MBean server, so its queue depth can be observed at runtime
+     * (e.g. with JConsole). Failure is only logged, as statistics are not required to serve requests.
+     *
+     * @param service password hashing pool
+     */
+    private static void register(PasswordHashingService service) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(service, new ObjectName(PASSWORD_HASHING_MBEAN));
+        } catch (JMException ex) {
+            log.log(Level.WARNING, "Unable to register password hashing statistics", ex);
+        }
+    }
+
+    /**
+     * Removes the password hashing pool from the platform MBean server.
+     */
+    private static void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(PASSWORD_HASHING_MBEAN));
+        } catch (JMException ex) {
+            log.log(Level.FINE, "Password hashing statistics were not registered", ex);
+        }
+    }
+
+    /**
+     * @param name JNDI name of the container managed data source (pooled connections and cached statements)
+     * @return data source
+     * @throws IllegalStateException if data source is not available
+     */
+    private static DataSource lookup(String name) throws IllegalStateException {
+        try {
+            return (DataSource) new InitialContext().lookup(name);
+        } catch (NamingException ex) {
+            throw new IllegalStateException("Data source %s is not available".formatted(name), ex);
+        }
+    }
+
 }
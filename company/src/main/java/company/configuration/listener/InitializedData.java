@@ -18,11 +18,12 @@ import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Listener started automatically on servlet context initialized. Fetches instance of the datasource from the servlet
- * context and fills it with default content. Normally this class would fetch database datasource and init data only in
- * cases of empty database. When using persistence storage application instance should be initialized only during first
+ * context and fills it with default content. Data is initialized only in case of empty datasource, so data recovered
+ * from persistent storage is not overwritten. When using persistence storage application instance should be initialized only during first
  * run in order to init database with starting data. Good place to create first default admin user.
  */
 @WebListener//using annotation does not allow configuring order
@@ -48,7 +49,9 @@ public class InitializedData implements ServletContextListener {
         deviceService = (DeviceService) event.getServletContext().getAttribute("deviceService");
         userService = (UserService) event.getServletContext().getAttribute("userService");
         brandService = (BrandService) event.getServletContext().getAttribute("brandService");
-        init();
+        if (userService.findPage(null, 1).elements().isEmpty()) {//data recovered from persistent storage is kept
+            init();
+        }
     }
 
     /**
@@ -90,9 +93,8 @@ public class InitializedData implements ServletContextListener {
                 .roles(List.of(UserRoles.USER))
                 .build();
 
-        userService.create(admin);
-        userService.create(kevin);
-        userService.create(alice);
+        CompletableFuture.allOf(userService.create(admin), userService.create(kevin), userService.create(alice))
+                .join();
 
 
 
@@ -132,7 +134,6 @@ public class InitializedData implements ServletContextListener {
                 .mass(80000)
                 .deviceType(DeviceType.FRIDGE)
                 .brand(sasung)
-                .image(getResourceAsByteArray("../avatar/lodufka.png"))//package relative path
                 .user(kevin)
                 .build();
 
@@ -143,7 +144,6 @@ public class InitializedData implements ServletContextListener {
                 .mass(300)
                 .deviceType(DeviceType.PHONE)
                 .brand(mitsubushi)
-                .image(getResourceAsByteArray("../avatar/ph.png"))//package relative path
                 .user(kevin)
                 .build();
 
@@ -154,7 +154,6 @@ public class InitializedData implements ServletContextListener {
                 .mass(10000)
                 .brand(song)
                 .deviceType(DeviceType.TV)
-                .image(getResourceAsByteArray("../avatar/tv.png"))//package relative path
                 .user(alice)
                 .build();
 
@@ -165,7 +164,6 @@ public class InitializedData implements ServletContextListener {
                 .mass(500)
                 .deviceType(DeviceType.TABLET)
                 .brand(lp)
-                .image(getResourceAsByteArray("../avatar/tab.png"))//package relative path
                 .user(alice)
                 .build();
 
@@ -173,17 +171,22 @@ public class InitializedData implements ServletContextListener {
         deviceService.create(oiehfoihsaef);
         deviceService.create(flat10000);
         deviceService.create(tablet);
+
+        savePortrait(LODUFKA.getId(), "../avatar/lodufka.png");//package relative path
+        savePortrait(oiehfoihsaef.getId(), "../avatar/ph.png");//package relative path
+        savePortrait(flat10000.getId(), "../avatar/tv.png");//package relative path
+        savePortrait(tablet.getId(), "../avatar/tab.png");//package relative path
     }
 
     /**
+     * @param id   device's id
      * @param name name of the desired resource
-     * @return array of bytes read from the resource
      */
     @SneakyThrows
-    private byte[] getResourceAsByteArray(String name) {
+    private void savePortrait(UUID id, String name) {
         try (InputStream is = this.getClass().getResourceAsStream(name)) {
             if (is != null) {
-                return is.readAllBytes();
+                deviceService.updatePortrait(id, is);
             } else {
                 throw new IllegalStateException("Unable to get resource %s".formatted(name));
             }
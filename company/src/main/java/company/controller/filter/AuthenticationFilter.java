@@ -0,0 +1,234 @@
+package company.controller.filter;
+
+import company.controller.servlet.ApiServlet;
+import company.controller.servlet.exception.ServiceUnavailableException;
+import company.user.entity.User;
+import company.user.service.UserService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+/**
+ * Web filter authenticating requests with <code>Authorization</code> header. Basic credentials are verified with
+ * password hashing (slow on purpose) and a session token is returned in {@link #TOKEN_HEADER} header. Next requests
+ * should send the token as <code>Bearer</code> credentials, which are checked with a single lookup. Requests without
+ * credentials are passed on anonymously, requests with invalid ones are rejected with 401 status code.
+ * <p>
+ * Password is verified on the hashing pool without blocking the container thread: the request is put into asynchronous
+ * mode and, once the password is verified, either finished with an error response or dispatched again to continue
+ * through the chain as the authenticated user.
+ * <p>
+ * Authenticated user is available through {@link HttpServletRequest#getUserPrincipal()} and
+ * {@link HttpServletRequest#isUserInRole(String)}. The filter writes error responses itself, so it does not depend on
+ * the order relative to {@link ExceptionFilter}.
+ */
+@Log
+@WebFilter(urlPatterns = {
+        ApiServlet.Paths.API + "/*"
+}, asyncSupported = true, dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC})
+public class AuthenticationFilter extends HttpFilter {
+
+    /**
+     * Response header with issued session token.
+     */
+    public static final String TOKEN_HEADER = "X-Auth-Token";
+
+    /**
+     * Name of the request attribute with user authenticated before the request was dispatched again.
+     */
+    private static final String AUTHENTICATED = AuthenticationFilter.class.getName() + ".authenticated";
+
+    /**
+     * Service for authenticating users.
+     */
+    private UserService service;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        service = (UserService) getServletContext().getAttribute("userService");
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            if (request.getAttribute(AUTHENTICATED) instanceof User user) {
+                chain.doFilter(new AuthenticatedRequest(request, user, HttpServletRequest.BASIC_AUTH), response);
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<User> user;
+        String authType;
+        if (authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            user = service.findBySession(authorization.substring(7).trim());
+            authType = "BEARER";
+        } else if (authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            CompletableFuture<Optional<User>> verified;
+            try {
+                verified = authenticate(authorization.substring(6).trim());
+            } catch (RejectedExecutionException ex) {
+                unavailable(response);
+                return;
+            }
+            if (!verified.isDone()) {
+                AsyncContext async = request.startAsync();
+                verified.whenComplete((result, ex) -> resume(async, result, ex));
+                return;
+            }
+            user = verified.join();//malformed credentials or unknown login, nothing to wait for
+            user.ifPresent(authenticated -> response.setHeader(TOKEN_HEADER, service.openSession(authenticated)));
+            authType = HttpServletRequest.BASIC_AUTH;
+        } else {
+            user = Optional.empty();
+            authType = null;
+        }
+        if (user.isEmpty()) {
+            unauthorized(response);
+            return;
+        }
+        chain.doFilter(new AuthenticatedRequest(request, user.get(), authType), response);
+    }
+
+    /**
+     * Continues request suspended while the password was verified. Authenticated request is dispatched again and
+     * passes the chain as the authenticated user, otherwise the error response is sent.
+     *
+     * @param async  asynchronous context of the request
+     * @param result container (can be empty) with authenticated user, null if verification failed
+     * @param ex     verification failure or null
+     */
+    private void resume(AsyncContext async, Optional<User> result, Throwable ex) {
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        try {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof RejectedExecutionException) {
+                    unavailable(response);
+                } else {
+                    log.log(Level.WARNING, "Unable to verify password", cause);
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+                async.complete();
+            } else if (result.isEmpty()) {
+                unauthorized(response);
+                async.complete();
+            } else {
+                response.setHeader(TOKEN_HEADER, service.openSession(result.get()));
+                async.getRequest().setAttribute(AUTHENTICATED, result.get());
+                async.dispatch();
+            }
+        } catch (IOException | IllegalStateException resumeEx) {
+            log.fine("Unable to resume request after password verification");//e.g. already timed out
+        }
+    }
+
+    /**
+     * @param response servlet response
+     * @throws IOException if an input or output error occurs
+     */
+    private static void unauthorized(HttpServletResponse response) throws IOException {
+        response.setHeader("WWW-Authenticate", "Bearer, Basic realm=\"company\"");
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+    /**
+     * @param response servlet response
+     * @throws IOException if an input or output error occurs
+     */
+    private static void unavailable(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", String.valueOf(ServiceUnavailableException.RETRY_AFTER));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * @param credentials Base64 encoded login and password separated with colon
+     * @return future completed with container (can be empty) with authenticated user
+     * @throws RejectedExecutionException if the hashing pool is overloaded
+     */
+    private CompletableFuture<Optional<User>> authenticate(String credentials) throws RejectedExecutionException {
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(credentials), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        int separator = decoded.indexOf(':');
+        if (separator < 0) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return service.authenticate(decoded.substring(0, separator), decoded.substring(separator + 1));
+    }
+
+    /**
+     * Request of authenticated user.
+     */
+    private static class AuthenticatedRequest extends HttpServletRequestWrapper {
+
+        /**
+         * Authenticated user.
+         */
+        private final User user;
+
+        /**
+         * Authentication scheme.
+         */
+        private final String authType;
+
+        /**
+         * @param request  original request
+         * @param user     authenticated user
+         * @param authType authentication scheme
+         */
+        AuthenticatedRequest(HttpServletRequest request, User user, String authType) {
+            super(request);
+            this.user = user;
+            this.authType = authType;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return user::getLogin;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return user.getLogin();
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return user.getRoles() != null && user.getRoles().contains(role);
+        }
+
+        @Override
+        public String getAuthType() {
+            return authType;
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package company.controller.filter;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebFilter;
@@ -8,21 +9,26 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import company.controller.servlet.ApiServlet;
 import company.controller.servlet.exception.HttpRequestException;
+import company.controller.servlet.exception.ServiceUnavailableException;
 
 import java.io.IOException;
 
 /**
- * Web filter with mechanism for catching exceptions and rewriting them to appropriate HTTP response statutes.
+ * Web filter with mechanism for catching exceptions and rewriting them to appropriate HTTP response statutes. Requests
+ * dispatched again after asynchronous authentication are handled as well.
  */
 @WebFilter(urlPatterns = {
         ApiServlet.Paths.API + "/*"
-})
+}, asyncSupported = true, dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC})
 public class ExceptionFilter extends HttpFilter {
 
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
         try {
             super.doFilter(request, response, chain);
+        } catch (ServiceUnavailableException ex) {
+            response.setHeader("Retry-After", String.valueOf(ServiceUnavailableException.RETRY_AFTER));
+            response.sendError(ex.getResponseCode());
         } catch (HttpRequestException ex) {
             response.sendError(ex.getResponseCode());
         }
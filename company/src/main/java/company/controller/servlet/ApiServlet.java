@@ -1,13 +1,22 @@
 package company.controller.servlet;
 
 import company.device.controller.api.DeviceController;
+import company.controller.servlet.exception.BadRequestException;
+import company.controller.servlet.exception.HttpRequestException;
+import company.controller.servlet.exception.ServiceUnavailableException;
+import company.device.dto.GetDevicesRequest;
 import company.device.dto.PatchDeviceRequest;
+import company.device.dto.PostDevicesRequest;
 import company.device.dto.PutDeviceRequest;
+import company.device.entity.DeviceType;
 import company.user.controller.api.UserController;
 import company.user.dto.PatchUserRequest;
+import company.user.dto.PostUsersRequest;
 import company.user.dto.PutUserRequest;
 import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbException;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.annotation.WebServlet;
@@ -15,22 +24,68 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import company.device.controller.api.BrandController;
+import company.repository.api.Version;
+import lombok.extern.java.Log;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Central API servlet for fetching all request from the client and preparing responses. Servlet API does not allow
  * named path parameters so wildcard is used.
+ * <p>
+ * When <code>asyncRequests</code> context parameter is enabled, requests are processed asynchronously: container
+ * thread is released right after the request is handed to the executor (virtual thread per task when available,
+ * bounded pool otherwise). Images sent as raw request body and images sent in responses are then transferred with
+ * non-blocking I/O, so slow clients do not hold any thread at all. Requests creating users are finished when password
+ * hashing completes, without blocking any thread in either mode.
  */
+@Log
 @WebServlet(urlPatterns = {
         ApiServlet.Paths.API + "/*"
-})
-@MultipartConfig(maxFileSize = 200 * 1024)
+}, asyncSupported = true)
+@MultipartConfig(maxFileSize = ApiServlet.MAX_IMAGE_SIZE)
 public class ApiServlet extends HttpServlet {
 
+    /**
+     * Maximal size of uploaded image in bytes.
+     */
+    public static final int MAX_IMAGE_SIZE = 200 * 1024;
+
     /**
      * Controller for managing collections devices' representations.
      */
@@ -59,63 +114,163 @@ public class ApiServlet extends HttpServlet {
     }
 
     /**
-     * Patterns used for checking servlet path.
+     * Templates of routes supported by this servlet, relative to {@link Paths#API}. The <code>{id}</code> segment
+     * matches UUID.
      */
-    public static final class Patterns {
-
-        /**
-         * UUID
-         */
-        private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    public static final class Routes {
 
         /**
          * All devices.
          */
-        public static final Pattern DEVICES = Pattern.compile("/devices/?");
+        public static final String DEVICES = "/devices";
 
         /**
          * Single device.
          */
-        public static final Pattern DEVICE = Pattern.compile("/devices/(%s)".formatted(UUID.pattern()));
+        public static final String DEVICE = "/devices/{id}";
 
         /**
          * Single device's image.
          */
-        public static final Pattern DEVICE_IMAGE = Pattern.compile("/devices/(%s)/image".formatted(UUID.pattern()));
+        public static final String DEVICE_IMAGE = "/devices/{id}/image";
 
         /**
          * All Brands.
          */
-        public static final Pattern BRANDS = Pattern.compile("/brands/?");
+        public static final String BRANDS = "/brands";
 
         /**
          * All devices of single Brand.
          */
-        public static final Pattern BRAND_DEVICES = Pattern.compile("/brands/(%s)/devices/?".formatted(UUID.pattern()));
+        public static final String BRAND_DEVICES = "/brands/{id}/devices";
 
         /**
          * All devices of single user.
          */
-        public static final Pattern USER_DEVICES = Pattern.compile("/users/(%s)/devices/?".formatted(UUID.pattern()));
-
+        public static final String USER_DEVICES = "/users/{id}/devices";
 
         /**
-         * Single user.
+         * Single user's image.
          */
-        public static final Pattern USER_IMAGE = Pattern.compile("/users/(%s)/image".formatted(UUID.pattern()));
+        public static final String USER_IMAGE = "/users/{id}/image";
 
         /**
          * All users.
          */
-        public static final Pattern USERS = Pattern.compile("/users/?");
+        public static final String USERS = "/users";
 
         /**
          * Single user.
          */
-        public static final Pattern USER = Pattern.compile("/users/(%s)".formatted(UUID.pattern()));
+        public static final String USER = "/users/{id}";
+
+        /**
+         * Batch of new devices.
+         */
+        public static final String DEVICES_BATCH = "/devices:batch";
+
+        /**
+         * Batch of new users.
+         */
+        public static final String USERS_BATCH = "/users:batch";
+
+        /**
+         * Point-in-time export of all devices.
+         */
+        public static final String EXPORT_DEVICES = "/export/devices.ndjson";
+
+        /**
+         * Point-in-time export of all users.
+         */
+        public static final String EXPORT_USERS = "/export/users.ndjson";
+
+        /**
+         * Point-in-time export of all brands.
+         */
+        public static final String EXPORT_BRANDS = "/export/brands.ndjson";
+
+    }
+
+    /**
+     * Query parameters used for paging, filtering and projecting. Presence of any paging or filtering parameter
+     * switches collection endpoint from streaming whole collection to returning single page.
+     */
+    public static final class Params {
+
+        /**
+         * Id of the last element on previous page.
+         */
+        public static final String CURSOR = "cursor";
+
+        /**
+         * Maximal number of elements on the page.
+         */
+        public static final String LIMIT = "limit";
+
+        /**
+         * Device's type filter.
+         */
+        public static final String DEVICE_TYPE = "deviceType";
+
+        /**
+         * Minimal device's price filter.
+         */
+        public static final String MIN_PRICE = "minPrice";
+
+        /**
+         * Maximal device's price filter.
+         */
+        public static final String MAX_PRICE = "maxPrice";
+
+        /**
+         * Comma separated names of representation's properties to be returned. Applied to each element of a page
+         * as well.
+         */
+        public static final String FIELDS = "fields";
+
+        /**
+         * Page size used when limit is not provided.
+         */
+        public static final int DEFAULT_LIMIT = 50;
+
+        /**
+         * Upper bound of the page size.
+         */
+        public static final int MAX_LIMIT = 1000;
 
     }
 
+    /**
+     * Dispatch table built once on initialization.
+     */
+    private RouteTable routes;
+
+    /**
+     * Executor of asynchronously processed requests, null when requests are processed synchronously.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Timeout of asynchronously processed request in milliseconds.
+     */
+    private long asyncTimeout;
+
+    /**
+     * Name of the request attribute with future of pending work (non-blocking transfer, password hashing).
+     * Asynchronous request is completed when the future completes instead of when the handler returns.
+     */
+    private static final String PENDING_COMPLETION = ApiServlet.class.getName() + ".pendingCompletion";
+
+    /**
+     * Content type of newline delimited JSON.
+     */
+    private static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Size of buffers used while writing exports.
+     */
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+
     /**
      * JSON-B mapping object. According to open liberty documentation creating this is expensive. The JSON-B is only one
      * of many solutions. JSON strings can be built by hand {@link StringBuilder} or with JSON-P API. Both JSON-B and
@@ -138,113 +293,205 @@ public class ApiServlet extends HttpServlet {
         deviceController = (DeviceController) getServletContext().getAttribute("deviceController");
         brandController = (BrandController) getServletContext().getAttribute("brandController");
         userController = (UserController) getServletContext().getAttribute("userController");
+        routes = createRoutes();
+        if (Boolean.parseBoolean(getServletContext().getInitParameter("asyncRequests"))) {
+            String threads = getServletContext().getInitParameter("asyncThreads");
+            String queue = getServletContext().getInitParameter("asyncQueue");
+            String timeout = getServletContext().getInitParameter("asyncTimeout");
+            executor = createExecutor(threads != null ? Integer.parseInt(threads) : 200,
+                    queue != null ? Integer.parseInt(queue) : 1000);
+            asyncTimeout = Duration.ofSeconds(timeout != null ? Long.parseLong(timeout) : 300).toMillis();
+        }
     }
 
-    @SuppressWarnings("RedundantThrows")
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        String path = parseRequestPath(request);
-        String servletPath = request.getServletPath();
-        if (Paths.API.equals(servletPath)) {
-            if (path.matches(Patterns.DEVICES.pattern())) {
-                response.setContentType("application/json");
-                response.getWriter().write(jsonb.toJson(deviceController.getDevices()));
-                return;
-            } else if (path.matches(Patterns.DEVICE.pattern())) {
-                response.setContentType("application/json");
-                UUID uuid = extractUuid(Patterns.DEVICE, path);
-                response.getWriter().write(jsonb.toJson(deviceController.getDevice(uuid)));
-                return;
-            } else if (path.matches(Patterns.BRANDS.pattern())) {
-                response.setContentType("application/json");
-                response.getWriter().write(jsonb.toJson(brandController.getBrands()));
-                return;
-            } else if (path.matches(Patterns.BRAND_DEVICES.pattern())) {
-                response.setContentType("application/json");
-                UUID uuid = extractUuid(Patterns.BRAND_DEVICES, path);
-                response.getWriter().write(jsonb.toJson(deviceController.getBrandDevices(uuid)));
-                return;
-            } else if (path.matches(Patterns.USER_DEVICES.pattern())) {
-                response.setContentType("application/json");
-                UUID uuid = extractUuid(Patterns.USER_DEVICES, path);
-                response.getWriter().write(jsonb.toJson(deviceController.getUserDevices(uuid)));
-                return;
-            } else if (path.matches(Patterns.DEVICE_IMAGE.pattern())) {
-                response.setContentType("image/png");//could be dynamic but atm we support only one format
-                UUID uuid = extractUuid(Patterns.DEVICE_IMAGE, path);
-                byte[] image = deviceController.getDeviceImage(uuid);
-                response.setContentLength(image.length);
-                response.getOutputStream().write(image);
-                return;
-            } else if (path.matches(Patterns.USER.pattern())) {
-                response.setContentType("application/json");
-                UUID uuid = extractUuid(Patterns.USER, path);
-                response.getWriter().write(jsonb.toJson(userController.getUser(uuid)));
-                return;
-            } else if (path.matches(Patterns.USERS.pattern())) {
-                response.setContentType("application/json");
-                response.getWriter().write(jsonb.toJson(userController.getUsers()));
-                return;
-            } else if (path.matches(Patterns.USER_IMAGE.pattern())) {
-                response.setContentType("image/png");//could be dynamic but atm we support only one format
-                UUID uuid = extractUuid(Patterns.USER_IMAGE, path);
-                byte[] image = userController.getUserImage(uuid);
-                response.setContentLength(image.length);
-                response.getOutputStream().write(image);
-                return;
-            }
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
         }
-        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+        super.destroy();
     }
 
-    protected void doPut(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        String path = parseRequestPath(request);
-        String servletPath = request.getServletPath();
-        if (Paths.API.equals(servletPath)) {
-            if (path.matches(Patterns.DEVICE.pattern())) {
-                UUID uuid = extractUuid(Patterns.DEVICE, path);
-                deviceController.putDevice(uuid, jsonb.fromJson(request.getReader(), PutDeviceRequest.class));
-                response.addHeader("Location", createUrl(request, Paths.API, "devices", uuid.toString()));
-                return;
-            } else if (path.matches(Patterns.DEVICE_IMAGE.pattern())) {
-                UUID uuid = extractUuid(Patterns.DEVICE_IMAGE, path);
-                deviceController.putDeviceImage(uuid, request.getPart("image").getInputStream());
-                return;
-            } else if (path.matches(Patterns.USER.pattern())) {
-                UUID uuid = extractUuid(Patterns.USER, path);
-                userController.putUser(uuid, jsonb.fromJson(request.getReader(), PutUserRequest.class));
-                response.addHeader("Location", createUrl(request, Paths.API, "users", uuid.toString()));
-                return;
-            } else if (path.matches(Patterns.USER_IMAGE.pattern())) {
-                UUID uuid = extractUuid(Patterns.USER_IMAGE, path);
-                userController.putUserImage(uuid, request.getPart("image").getInputStream());
-                return;
-            }
+    /**
+     * Creates executor of asynchronously processed requests. Virtual thread per task executor is used when running on
+     * Java 21 or newer (looked up reflectively as the code is compiled for Java 17), bounded pool of platform threads
+     * otherwise. Bounded pool rejects requests when its queue is full.
+     *
+     * @param threads  number of platform threads
+     * @param capacity maximal number of requests waiting for platform thread
+     * @return requests executor
+     */
+    private static ExecutorService createExecutor(int threads, int capacity) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Asynchronous requests processed with virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException ex) {
+            log.info("Asynchronous requests processed with %d platform threads".formatted(threads));
+            AtomicInteger counter = new AtomicInteger();
+            return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "api-request-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
         }
-        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
     }
 
-    @SuppressWarnings("RedundantThrows")
+    /**
+     * Creates dispatch table of all supported routes.
+     *
+     * @return route table
+     */
+    private RouteTable createRoutes() {
+        return new RouteTable()
+                .add("GET", Routes.DEVICES, (request, response, id) -> {
+                    if (notModified(request, response, deviceController.getDevicesVersion())) {
+                        return;
+                    }
+                    Set<String> fields = parseFields(request);
+                    if (isPaged(request)) {
+                        GetDevicesRequest devicesRequest = parseDevicesRequest(request);
+                        writeJson(response, fields != null
+                                ? deviceController.getDevices(devicesRequest, fields)
+                                : deviceController.getDevices(devicesRequest));
+                        return;
+                    }
+                    if (fields != null) {
+                        writeCollection(response, "devices", deviceController.streamDevices(fields));
+                        return;
+                    }
+                    writeCollection(response, "devices", deviceController.streamDevices());
+                })
+                .add("GET", Routes.DEVICE, (request, response, id) -> {
+                    if (notModified(request, response, deviceController.getDeviceVersion(id))) {
+                        return;
+                    }
+                    Set<String> fields = parseFields(request);
+                    writeJson(response, fields != null ? deviceController.getDevice(id, fields) : deviceController.getDevice(id));
+                })
+                .add("GET", Routes.BRANDS, (request, response, id) -> {
+                    if (notModified(request, response, brandController.getBrandsVersion())) {
+                        return;
+                    }
+                    if (isPaged(request)) {
+                        writeJson(response, brandController.getBrands(parseCursor(request), parseLimit(request)));
+                        return;
+                    }
+                    writeCollection(response, "brands", brandController.streamBrands());
+                })
+                .add("GET", Routes.BRAND_DEVICES, (request, response, id) -> {
+                    if (notModified(request, response, deviceController.getBrandDevicesVersion(id))) {
+                        return;
+                    }
+                    if (isPaged(request)) {
+                        writeJson(response, deviceController.getBrandDevices(id, parseDevicesRequest(request)));
+                        return;
+                    }
+                    writeCollection(response, "devices", deviceController.streamBrandDevices(id));
+                })
+                .add("GET", Routes.USER_DEVICES, (request, response, id) -> {
+                    if (notModified(request, response, deviceController.getUserDevicesVersion(id))) {
+                        return;
+                    }
+                    writeCollection(response, "devices", deviceController.streamUserDevices(id));
+                })
+                .add("GET", Routes.DEVICE_IMAGE, (request, response, id) -> {
+                    if (notModified(request, response, deviceController.getDeviceImageVersion(id))) {
+                        return;
+                    }
+                    response.setContentType("image/png");//could be dynamic but atm we support only one format
+                    writeFile(request, response, deviceController.getDeviceImage(id));
+                })
+                .add("GET", Routes.USER, (request, response, id) -> {
+                    if (notModified(request, response, userController.getUserVersion(id))) {
+                        return;
+                    }
+                    Set<String> fields = parseFields(request);
+                    writeJson(response, fields != null ? userController.getUser(id, fields) : userController.getUser(id));
+                })
+                .add("GET", Routes.USERS, (request, response, id) -> {
+                    if (notModified(request, response, userController.getUsersVersion())) {
+                        return;
+                    }
+                    if (isPaged(request)) {
+                        writeJson(response, userController.getUsers(parseCursor(request), parseLimit(request)));
+                        return;
+                    }
+                    writeCollection(response, "users", userController.streamUsers());
+                })
+                .add("GET", Routes.USER_IMAGE, (request, response, id) -> {
+                    if (notModified(request, response, userController.getUserImageVersion(id))) {
+                        return;
+                    }
+                    response.setContentType("image/png");//could be dynamic but atm we support only one format
+                    writeFile(request, response, userController.getUserImage(id));
+                })
+                .add("GET", Routes.EXPORT_DEVICES, (request, response, id) ->
+                        writeNdjson(request, response, deviceController.exportDevices()))
+                .add("GET", Routes.EXPORT_USERS, (request, response, id) ->
+                        writeNdjson(request, response, userController.exportUsers()))
+                .add("GET", Routes.EXPORT_BRANDS, (request, response, id) ->
+                        writeNdjson(request, response, brandController.exportBrands()))
+                .add("PUT", Routes.DEVICE, (request, response, id) -> {
+                    deviceController.putDevice(id, jsonb.fromJson(request.getReader(), PutDeviceRequest.class));
+                    response.addHeader("Location", createUrl(request, Paths.API, "devices", id.toString()));
+                })
+                .add("POST", Routes.DEVICES_BATCH, (request, response, id) -> {
+                    List<PostDevicesRequest.Device> devices = readBatch(request, PostDevicesRequest.Device.class);
+                    deviceController.postDevices(PostDevicesRequest.builder().devices(devices).build());
+                    response.setStatus(HttpServletResponse.SC_CREATED);
+                })
+                .add("POST", Routes.USERS_BATCH, (request, response, id) -> {
+                    List<PostUsersRequest.User> users = readBatch(request, PostUsersRequest.User.class);
+                    completeWhenDone(request, response,
+                            userController.postUsers(PostUsersRequest.builder().users(users).build())
+                                    .thenRun(() -> response.setStatus(HttpServletResponse.SC_CREATED)));
+                })
+                .add("PUT", Routes.DEVICE_IMAGE, (request, response, id) ->
+                        readImage(request, image -> deviceController.putDeviceImage(id, image)))
+                .add("PUT", Routes.USER, (request, response, id) -> {
+                    String location = createUrl(request, Paths.API, "users", id.toString());
+                    completeWhenDone(request, response,
+                            userController.putUser(id, jsonb.fromJson(request.getReader(), PutUserRequest.class))
+                                    .thenRun(() -> response.addHeader("Location", location)));
+                })
+                .add("PUT", Routes.USER_IMAGE, (request, response, id) ->
+                        readImage(request, image -> userController.putUserImage(id, image)))
+                .add("DELETE", Routes.DEVICE, (request, response, id) ->
+                        deviceController.deleteDevice(id))
+                .add("DELETE", Routes.USER_IMAGE, (request, response, id) ->
+                        userController.deleteUserImage(id))
+                .add("DELETE", Routes.USER, (request, response, id) ->
+                        userController.deleteUser(id))
+                .add("PATCH", Routes.DEVICE, (request, response, id) ->
+                        deviceController.patchDevice(id, jsonb.fromJson(request.getReader(), PatchDeviceRequest.class)))
+                .add("PATCH", Routes.USER, (request, response, id) ->
+                        userController.patchUser(id, jsonb.fromJson(request.getReader(), PatchUserRequest.class)));
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        dispatch(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        dispatch(request, response);
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        dispatch(request, response);
+    }
+
     @Override
     protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        String path = parseRequestPath(request);
-        String servletPath = request.getServletPath();
-        if (Paths.API.equals(servletPath)) {
-            if (path.matches(Patterns.DEVICE.pattern())) {
-                UUID uuid = extractUuid(Patterns.DEVICE, path);
-                deviceController.deleteDevice(uuid);
-                return;
-            } else if (path.matches(Patterns.USER_IMAGE.pattern())) {
-                UUID uuid = extractUuid(Patterns.USER_IMAGE, path);
-                userController.deleteUserImage(uuid);
-                return;
-            } else if (path.matches(Patterns.USER.pattern())) {
-                UUID uuid = extractUuid(Patterns.USER, path);
-                userController.deleteUser(uuid);
-                return;
-            }
-        }
-        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+        dispatch(request, response);
     }
 
     /**
@@ -255,38 +502,546 @@ public class ApiServlet extends HttpServlet {
      * @throws ServletException if the request for the PATCH cannot be handled
      * @throws IOException      if an input or output error occurs while the servlet is handling the PATCH request
      */
-    @SuppressWarnings("RedundantThrows")
     protected void doPatch(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        dispatch(request, response);
+    }
+
+    /**
+     * Handles the request directly or, in asynchronous mode, starts asynchronous processing and hands the request to
+     * the executor. Errors of asynchronously processed requests are reported by {@link #fail(HttpServletResponse,
+     * Throwable)} as the request has already left the filters chain.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @throws ServletException if the request cannot be handled
+     * @throws IOException      if an input or output error occurs
+     */
+    private void dispatch(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (executor == null || !request.isAsyncSupported()) {
+            handle(request, response);
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        async.setTimeout(asyncTimeout);
+        try {
+            executor.execute(() -> {
+                try {
+                    handle(request, response);
+                } catch (IOException | ServletException | RuntimeException ex) {
+                    fail(response, ex);
+                }
+                CompletableFuture<?> pending = (CompletableFuture<?>) request.getAttribute(PENDING_COMPLETION);
+                if (pending == null) {
+                    complete(async);
+                } else {
+                    pending.whenComplete((ignored, ex) -> {
+                        if (ex != null) {
+                            fail(response, ex);
+                        }
+                        complete(async);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            fail(response, ex);
+            complete(async);
+        }
+    }
+
+    /**
+     * Finishes the request when the future completes, without blocking the calling thread. Asynchronously processed
+     * request is completed when the future completes, otherwise asynchronous processing is started for the rest of
+     * the request. Failures are reported by {@link #fail(HttpServletResponse, Throwable)}.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @param future   completed when the request is processed
+     */
+    private void completeWhenDone(HttpServletRequest request, HttpServletResponse response,
+                                  CompletableFuture<?> future) {
+        if (request.isAsyncStarted()) {
+            request.setAttribute(PENDING_COMPLETION, future);
+            return;
+        }
+        if (!request.isAsyncSupported()) {//the whole chain must support it, otherwise waiting is the only option
+            try {
+                future.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        if (asyncTimeout > 0) {
+            async.setTimeout(asyncTimeout);
+        }
+        future.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                fail(response, ex);
+            }
+            complete(async);
+        });
+    }
+
+    /**
+     * Completes asynchronous processing unless it was already completed by the container (e.g. on timeout).
+     *
+     * @param async asynchronous context of the request
+     */
+    private static void complete(AsyncContext async) {
+        try {
+            async.complete();
+        } catch (IllegalStateException ex) {
+            log.fine("Asynchronous request already completed");
+        }
+    }
+
+    /**
+     * Writes error response of asynchronously processed request, the same way as
+     * {@link company.controller.filter.ExceptionFilter} does for synchronous ones. Rejection by the executor is
+     * reported with 503, unexpected errors are logged and reported with 500 status code.
+     *
+     * @param response servlet response
+     * @param ex       error, can be wrapped in {@link CompletionException}
+     */
+    private static void fail(HttpServletResponse response, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RejectedExecutionException) {
+            cause = new ServiceUnavailableException(cause);
+        }
+        if (!(cause instanceof HttpRequestException)) {
+            log.log(Level.WARNING, "Asynchronous request failed", cause);
+        }
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            if (cause instanceof ServiceUnavailableException) {
+                response.setHeader("Retry-After", String.valueOf(ServiceUnavailableException.RETRY_AFTER));
+            }
+            response.sendError(cause instanceof HttpRequestException http
+                    ? http.getResponseCode()
+                    : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException | IllegalStateException sendEx) {
+            log.fine("Unable to send error response");
+        }
+    }
+
+    /**
+     * Finds route for the request in dispatch table and calls its handler. Responds with 400 if there is no such route.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @throws ServletException if the request cannot be handled
+     * @throws IOException      if an input or output error occurs
+     */
+    private void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         String path = parseRequestPath(request);
         String servletPath = request.getServletPath();
-        if (Paths.API.equals(servletPath)) {
-            if (path.matches(Patterns.DEVICE.pattern())) {
-                UUID uuid = extractUuid(Patterns.DEVICE, path);
-                deviceController.patchDevice(uuid, jsonb.fromJson(request.getReader(), PatchDeviceRequest.class));
-                return;
+        String method = request.getMethod().equals("HEAD") ? "GET" : request.getMethod();//HEAD is handled as GET without body
+        if (Paths.API.equals(servletPath) && routes.dispatch(method, path, request, response)) {
+            return;
+        }
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+    }
+
+    /**
+     * Serializes object with JSON-B and writes it to the response.
+     *
+     * @param response servlet response
+     * @param body     object to be serialized
+     * @throws IOException if an input or output error occurs
+     */
+    private void writeJson(HttpServletResponse response, Object body) throws IOException {
+        response.setContentType("application/json");
+        response.getWriter().write(jsonb.toJson(body));
+    }
+
+    /**
+     * Reads batch of elements sent either as JSON array or, when content type is {@link #NDJSON}, as newline delimited
+     * JSON objects. Newline delimited elements are parsed line by line, so the whole body is never held as a single
+     * JSON document.
+     *
+     * @param request servlet request
+     * @param type    type of the element
+     * @param <T>     type of the element
+     * @return list of elements
+     * @throws IOException         if an input or output error occurs
+     * @throws BadRequestException if body is malformed
+     */
+    private <T> List<T> readBatch(HttpServletRequest request, Class<T> type) throws IOException {
+        try {
+            String contentType = request.getContentType();
+            if (contentType != null && contentType.startsWith(NDJSON)) {
+                List<T> elements = new ArrayList<>();
+                BufferedReader reader = request.getReader();
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (!line.isBlank()) {
+                        elements.add(jsonb.fromJson(line, type));
+                    }
+                }
+                return elements;
             }
-            if (path.matches(Patterns.USER.pattern())) {
-                UUID uuid = extractUuid(Patterns.USER, path);
-                userController.patchUser(uuid, jsonb.fromJson(request.getReader(), PatchUserRequest.class));
-                return;
+            @SuppressWarnings("unchecked")
+            T[] elements = (T[]) jsonb.fromJson(request.getReader(), type.arrayType());
+            if (elements == null) {
+                throw new BadRequestException("Batch is required");
             }
+            return Arrays.asList(elements);
+        } catch (JsonbException ex) {
+            throw new BadRequestException(ex);
         }
-        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
     }
 
     /**
-     * Extracts UUID from path using provided pattern. Pattern needs to contain UUID in first regular expression group.
+     * @param request servlet request
+     * @return true if any paging or filtering parameter is present
+     */
+    private static boolean isPaged(HttpServletRequest request) {
+        return request.getParameter(Params.CURSOR) != null
+                || request.getParameter(Params.LIMIT) != null
+                || request.getParameter(Params.DEVICE_TYPE) != null
+                || request.getParameter(Params.MIN_PRICE) != null
+                || request.getParameter(Params.MAX_PRICE) != null;
+    }
+
+    /**
+     * @param request servlet request
+     * @return names of selected fields or null if all fields should be returned
+     * @throws BadRequestException if no field is selected
+     */
+    private static Set<String> parseFields(HttpServletRequest request) {
+        String fields = request.getParameter(Params.FIELDS);
+        if (fields == null) {
+            return null;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                selected.add(field.trim());
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new BadRequestException("No field selected");
+        }
+        return selected;
+    }
+
+    /**
+     * @param request servlet request
+     * @return paging and filtering parameters of devices collection
+     * @throws BadRequestException if any of parameters is malformed
+     */
+    private static GetDevicesRequest parseDevicesRequest(HttpServletRequest request) {
+        String deviceType = request.getParameter(Params.DEVICE_TYPE);
+        GetDevicesRequest devicesRequest = GetDevicesRequest.builder()
+                .cursor(parseCursor(request))
+                .limit(parseLimit(request))
+                .minPrice(parseInteger(request, Params.MIN_PRICE))
+                .maxPrice(parseInteger(request, Params.MAX_PRICE))
+                .build();
+        if (deviceType != null) {
+            try {
+                devicesRequest.setDeviceType(DeviceType.valueOf(deviceType));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Unknown device type: " + deviceType, ex);
+            }
+        }
+        return devicesRequest;
+    }
+
+    /**
+     * @param request servlet request
+     * @return id of the last element on previous page or null for the first page
+     * @throws BadRequestException if cursor is not valid UUID
+     */
+    private static UUID parseCursor(HttpServletRequest request) {
+        String cursor = request.getParameter(Params.CURSOR);
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Malformed cursor: " + cursor, ex);
+        }
+    }
+
+    /**
+     * @param request servlet request
+     * @return page size, {@link Params#DEFAULT_LIMIT} if not provided
+     * @throws BadRequestException if limit is not in range from 1 to {@link Params#MAX_LIMIT}
+     */
+    private static int parseLimit(HttpServletRequest request) {
+        Integer limit = parseInteger(request, Params.LIMIT);
+        if (limit == null) {
+            return Params.DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > Params.MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + Params.MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    /**
+     * @param request servlet request
+     * @param name    parameter name
+     * @return parameter value or null if parameter is missing
+     * @throws BadRequestException if parameter is not an integer
+     */
+    private static Integer parseInteger(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Malformed " + name + ": " + value, ex);
+        }
+    }
+
+    /**
+     * Writes elements as newline delimited JSON, one element per line. Elements are serialized one by one through
+     * fixed size buffers, so memory use does not depend on the number of elements. Response is compressed with gzip
+     * when the client accepts it.
      *
-     * @param pattern regular expression pattern with
-     * @param path    request path containing UUID
-     * @return extracted UUID
+     * @param request  servlet request
+     * @param response servlet response
+     * @param elements exported elements, stream is closed after writing
+     * @param <T>      type of elements
+     * @throws IOException if an input or output error occurs
      */
-    private static UUID extractUuid(Pattern pattern, String path) {
-        Matcher matcher = pattern.matcher(path);
-        if (matcher.matches()) {
-            return UUID.fromString(matcher.group(1));
+    private <T> void writeNdjson(HttpServletRequest request, HttpServletResponse response, Stream<T> elements)
+            throws IOException {
+        try (elements) {
+            response.setContentType(NDJSON);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.addHeader("Vary", "Accept-Encoding");
+            OutputStream output = response.getOutputStream();
+            if (acceptsGzip(request)) {
+                response.setHeader("Content-Encoding", "gzip");
+                output = new GZIPOutputStream(output, EXPORT_BUFFER_SIZE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                    EXPORT_BUFFER_SIZE)) {
+                Iterator<T> iterator = elements.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(jsonb.toJson(iterator.next()));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * @param request servlet request
+     * @return true if client accepts gzip content coding (with non-zero quality)
+     */
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accepted = request.getHeader("Accept-Encoding");
+        if (accepted == null) {
+            return false;
+        }
+        for (String coding : accepted.split(",")) {
+            String[] parameters = coding.split(";");
+            if (parameters[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < parameters.length; i++) {
+                    String[] parameter = parameters[i].split("=", 2);
+                    if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                        return quality(parameter[1].trim()) > 0;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param value quality value of the content coding
+     * @return parsed quality, zero (not acceptable) if the value is malformed
+     */
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Writes JSON object with single array property directly to the response. Elements are taken from the stream and
+     * serialized one by one, so the whole document is never built in memory. The result is the same as serializing
+     * collection response (e.g. {@link company.device.dto.GetDevicesResponse}) with JSON-B.
+     *
+     * @param response servlet response
+     * @param name     name of the array property
+     * @param elements elements of the array, stream is closed after writing
+     * @param <T>      type of elements
+     * @throws IOException if an input or output error occurs
+     */
+    private <T> void writeCollection(HttpServletResponse response, String name, Stream<T> elements) throws IOException {
+        response.setContentType("application/json");
+        PrintWriter writer = response.getWriter();
+        try (elements) {
+            writer.write("{\"" + name + "\":[");
+            Iterator<T> iterator = elements.iterator();
+            while (iterator.hasNext()) {
+                writer.write(jsonb.toJson(iterator.next()));
+                if (iterator.hasNext()) {
+                    writer.write(',');
+                }
+            }
+            writer.write("]}");
+        }
+    }
+
+    /**
+     * Sets validators (ETag and Last-Modified) of the resource and evaluates conditional GET headers. If the resource
+     * was not modified 304 status is set and no body should be written. If-None-Match takes precedence over
+     * If-Modified-Since.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @param version  version of the resource
+     * @return true if the resource was not modified and response is complete
+     */
+    private static boolean notModified(HttpServletRequest request, HttpServletResponse response, Version version) {
+        return notModified(request, response, Optional.of(version));
+    }
+
+    /**
+     * Sets validators (ETag and Last-Modified) of the resource and evaluates conditional GET headers. If the resource
+     * was not modified 304 status is set and no body should be written. If-None-Match takes precedence over
+     * If-Modified-Since. When there is no version (resource does not exist) request is processed normally.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @param version  container (can be empty) with version of the resource
+     * @return true if the resource was not modified and response is complete
+     */
+    private static boolean notModified(HttpServletRequest request, HttpServletResponse response, Optional<Version> version) {
+        if (version.isEmpty()) {
+            return false;
+        }
+        String etag = version.get().etag();
+        long lastModified = version.get().lastModified().toEpochMilli();
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+
+        boolean notModified;
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            notModified = matchesEtag(ifNoneMatch, etag);
+        } else {
+            long ifModifiedSince = parseDateHeader(request, "If-Modified-Since");
+            notModified = ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;//header has seconds precision
+        }
+        if (notModified) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    /**
+     * Checks If-None-Match header value using weak comparison.
+     *
+     * @param header header value, list of entity tags or *
+     * @param etag   current entity tag
+     * @return true if any of tags matches
+     */
+    private static boolean matchesEtag(String header, String etag) {
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param request servlet request
+     * @param name    header name
+     * @return header date in milliseconds or -1 if header is missing or malformed
+     */
+    private static long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Passes uploaded image to the consumer. Image is taken from <code>image</code> part of multipart body or, for
+     * other content types, is the whole body. Whole body of asynchronously processed request is read without blocking
+     * and passed to the consumer on the executor when complete.
+     *
+     * @param request  servlet request
+     * @param consumer consumer of the image
+     * @throws ServletException if multipart body can not be parsed
+     * @throws IOException      if an input or output error occurs
+     */
+    private void readImage(HttpServletRequest request, Consumer<InputStream> consumer) throws ServletException, IOException {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            consumer.accept(request.getPart("image").getInputStream());
+        } else if (request.isAsyncStarted()) {
+            request.setAttribute(PENDING_COMPLETION, NonBlockingIo.readBody(request, MAX_IMAGE_SIZE)
+                    .thenAcceptAsync(body -> consumer.accept(new ByteArrayInputStream(body)), executor));
+        } else {
+            consumer.accept(request.getInputStream());
+        }
+    }
+
+    /**
+     * Streams whole file to the response without loading it into memory, without blocking when the request is
+     * processed asynchronously. Content length is taken from the file size. Channel is closed after the transfer.
+     *
+     * @param request  servlet request
+     * @param response servlet response
+     * @param channel  channel of the file to be sent
+     * @throws IOException if an input or output error occurs
+     */
+    private static void writeFile(HttpServletRequest request, HttpServletResponse response, FileChannel channel)
+            throws IOException {
+        if (request.isAsyncStarted() && !request.getMethod().equals("HEAD")) {//HEAD response has no body to wait for
+            request.setAttribute(PENDING_COMPLETION, NonBlockingIo.writeFile(response, channel));
+            return;
+        }
+        writeFile(response, channel);
+    }
+
+    /**
+     * Streams whole file to the response without loading it into memory. Content length is taken from the file size
+     * and no more bytes than announced are written. Channel is closed after the transfer.
+     *
+     * @param response servlet response
+     * @param channel  channel of the file to be sent
+     * @throws IOException if an input or output error occurs or the file ended before the announced size
+     */
+    private static void writeFile(HttpServletResponse response, FileChannel channel) throws IOException {
+        try (channel) {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                long transferred = channel.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    throw new EOFException("File ended after %d of %d bytes".formatted(position, size));
+                }
+                position += transferred;
+            }
         }
-        throw new IllegalArgumentException("No UUID in path.");
     }
 
     /**
@@ -0,0 +1,155 @@
+package company.controller.servlet;
+
+import company.controller.servlet.exception.PayloadTooLargeException;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking transfers of request and response bodies for requests in asynchronous mode. Data is moved only when
+ * the container reports that the stream is ready, so slow clients do not hold any thread while the transfer is in
+ * progress. Results are reported with futures completed from container callbacks.
+ */
+final class NonBlockingIo {
+
+    /**
+     * Size of the transfer buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private NonBlockingIo() {
+    }
+
+    /**
+     * Reads whole request body. Asynchronous processing must be started before the call.
+     *
+     * @param request servlet request
+     * @param limit   maximal body size in bytes
+     * @return future completed with the body, completed exceptionally with {@link PayloadTooLargeException} if the
+     * body is larger than the limit
+     * @throws IOException if the input stream can not be obtained
+     */
+    static CompletableFuture<byte[]> readBody(HttpServletRequest request, int limit) throws IOException {
+        long declared = request.getContentLengthLong();
+        if (declared > limit) {
+            return CompletableFuture.failedFuture(
+                    new PayloadTooLargeException("Body exceeds %d bytes".formatted(limit)));
+        }
+        ServletInputStream input = request.getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(declared > 0 ? (int) declared : BUFFER_SIZE);
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        input.setReadListener(new ReadListener() {
+
+            /**
+             * Transfer buffer.
+             */
+            private final byte[] buffer = new byte[BUFFER_SIZE];
+
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (!result.isDone() && input.isReady()) {
+                    int read = input.read(buffer);
+                    if (read < 0) {
+                        return;
+                    }
+                    if (body.size() + read > limit) {
+                        result.completeExceptionally(
+                                new PayloadTooLargeException("Body exceeds %d bytes".formatted(limit)));
+                        return;
+                    }
+                    body.write(buffer, 0, read);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                result.complete(body.toByteArray());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+        });
+        return result;
+    }
+
+    /**
+     * Writes whole file to the response. Content length is taken from the file size and no more bytes than announced
+     * are written. Asynchronous processing must be started before the call. Channel is closed after the transfer.
+     *
+     * @param response servlet response
+     * @param channel  channel of the file to be sent
+     * @return future completed when whole file was written, completed exceptionally with {@link EOFException} if the
+     * file ended before the announced size
+     * @throws IOException if the output stream can not be obtained
+     */
+    static CompletableFuture<Void> writeFile(HttpServletResponse response, FileChannel channel) throws IOException {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        result.whenComplete((ignored, ex) -> {
+            try {
+                channel.close();
+            } catch (IOException closeEx) {
+                //file was already sent or the transfer failed anyway
+            }
+        });
+        try {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+            ServletOutputStream output = response.getOutputStream();
+            output.setWriteListener(new WriteListener() {
+
+                /**
+                 * Transfer buffer.
+                 */
+                private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+                /**
+                 * Number of bytes already written.
+                 */
+                private long position;
+
+                @Override
+                public void onWritePossible() throws IOException {
+                    while (!result.isDone() && output.isReady()) {
+                        if (position == size) {
+                            result.complete(null);
+                            return;
+                        }
+                        buffer.clear().limit((int) Math.min(BUFFER_SIZE, size - position));
+                        int read = channel.read(buffer, position);
+                        if (read <= 0) {
+                            result.completeExceptionally(new EOFException(
+                                    "File ended after %d of %d bytes".formatted(position, size)));
+                            return;
+                        }
+                        output.write(buffer.array(), 0, read);
+                        position += read;
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    result.completeExceptionally(throwable);
+                }
+
+            });
+        } catch (IOException | RuntimeException ex) {
+            result.completeExceptionally(ex);
+            throw ex;
+        }
+        return result;
+    }
+
+}
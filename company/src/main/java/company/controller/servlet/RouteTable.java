@@ -0,0 +1,210 @@
+package company.controller.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dispatch table mapping request method and path to handler. Table should be built once (e.g. on servlet
+ * initialization) and used read only afterwards. Routes are kept in a trie keyed by literal path segments, path
+ * templates can contain single <code>{id}</code> segment matching UUID. Matching requires single pass over the path
+ * without any regular expressions. Single trailing slash in the path is ignored.
+ */
+public class RouteTable {
+
+    /**
+     * Placeholder for UUID segment in path template.
+     */
+    private static final String ID = "{id}";
+
+    /**
+     * Length of canonical UUID representation.
+     */
+    private static final int UUID_LENGTH = 36;
+
+    /**
+     * Handler of single route.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * @param request  servlet request
+         * @param response servlet response
+         * @param id       UUID extracted from the path or null if route has no id segment
+         * @throws ServletException if the request cannot be handled
+         * @throws IOException      if an input or output error occurs
+         */
+        void handle(HttpServletRequest request, HttpServletResponse response, UUID id) throws ServletException, IOException;
+
+    }
+
+    /**
+     * Single node of the trie representing path segment.
+     */
+    private static final class Node {
+
+        /**
+         * Children for literal segments.
+         */
+        private final Map<String, Node> literals = new HashMap<>();
+
+        /**
+         * Child for UUID segment.
+         */
+        private Node id;
+
+        /**
+         * Handlers of routes ending in this node by request method.
+         */
+        private final Map<String, Handler> handlers = new HashMap<>();
+
+    }
+
+    /**
+     * Root of the trie (empty path).
+     */
+    private final Node root = new Node();
+
+    /**
+     * Registers new route.
+     *
+     * @param method   request method, e.g. GET
+     * @param template path template, e.g. /devices/{id}/image
+     * @param handler  route handler
+     * @return this table
+     * @throws IllegalArgumentException if route is already registered or template has more than one id segment
+     */
+    public RouteTable add(String method, String template, Handler handler) throws IllegalArgumentException {
+        Node node = root;
+        boolean hasId = false;
+        for (String segment : template.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals(ID)) {
+                if (hasId) {
+                    throw new IllegalArgumentException("Only one id segment is supported in \"%s\"".formatted(template));
+                }
+                hasId = true;
+                if (node.id == null) {
+                    node.id = new Node();
+                }
+                node = node.id;
+            } else {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        if (node.handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalArgumentException("Route %s %s is already registered".formatted(method, template));
+        }
+        return this;
+    }
+
+    /**
+     * Finds route matching the request and calls its handler.
+     *
+     * @param method   request method
+     * @param path     request path (path info)
+     * @param request  servlet request
+     * @param response servlet response
+     * @return true if route was found and handled, false otherwise
+     * @throws ServletException if the request cannot be handled
+     * @throws IOException      if an input or output error occurs
+     */
+    public boolean dispatch(String method, String path, HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        Node node = root;
+        UUID id = null;
+        int length = path.length();
+        if (length > 1 && path.charAt(length - 1) == '/') {
+            length--;
+        }
+        int start = path.startsWith("/") ? 1 : 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            String segment = path.substring(start, end);
+            Node next = node.literals.get(segment);
+            if (next == null && node.id != null) {
+                id = parseUuid(path, start, end);
+                next = id != null ? node.id : null;
+            }
+            if (next == null) {
+                return false;
+            }
+            node = next;
+            start = end + 1;
+        }
+        if (start <= length) {//empty path or empty segment before trailing slash
+            return false;
+        }
+        Handler handler = node.handlers.get(method);
+        if (handler == null) {
+            return false;
+        }
+        handler.handle(request, response, id);
+        return true;
+    }
+
+    /**
+     * Parses canonical UUID representation (8-4-4-4-12 hexadecimal digits) from the part of the path.
+     *
+     * @param value text containing UUID
+     * @param start start index (inclusive)
+     * @param end   end index (exclusive)
+     * @return parsed UUID or null if the text is not canonical UUID
+     */
+    static UUID parseUuid(String value, int start, int end) {
+        if (end - start != UUID_LENGTH) {
+            return null;
+        }
+        long most = 0;
+        long least = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            int offset = i - start;
+            if (offset == 8 || offset == 13 || offset == 18 || offset == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return null;
+            }
+            if (digits < 16) {
+                most = (most << 4) | digit;
+            } else {
+                least = (least << 4) | digit;
+            }
+            digits++;
+        }
+        return new UUID(most, least);
+    }
+
+    /**
+     * @param c character
+     * @return value of hexadecimal digit or -1 if character is not ASCII hexadecimal digit
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+}
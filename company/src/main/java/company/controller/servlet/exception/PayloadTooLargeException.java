@@ -0,0 +1,49 @@
+package company.controller.servlet.exception;
+
+/**
+ * Exception indicates that request body is larger than the server accepts and 413 status code should be returned.
+ */
+public class PayloadTooLargeException extends HttpRequestException {
+
+    /**
+     * HTTP payload too large response code.
+     */
+    private static final int RESPONSE_CODE = 413;
+
+    public PayloadTooLargeException() {
+        super(RESPONSE_CODE);
+    }
+
+    /**
+     * @param message the detail message
+     */
+    public PayloadTooLargeException(String message) {
+        super(message, RESPONSE_CODE);
+    }
+
+    /**
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public PayloadTooLargeException(String message, Throwable cause) {
+        super(message, cause, RESPONSE_CODE);
+    }
+
+    /**
+     * @param cause the cause
+     */
+    public PayloadTooLargeException(Throwable cause) {
+        super(cause, RESPONSE_CODE);
+    }
+
+    /**
+     * @param message            the detail message
+     * @param cause              the cause
+     * @param enableSuppression  whether suppression is enabled or disabled
+     * @param writableStackTrace whether the stack trace should be writable
+     */
+    public PayloadTooLargeException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace, RESPONSE_CODE);
+    }
+
+}
@@ -0,0 +1,54 @@
+package company.controller.servlet.exception;
+
+/**
+ * Exception indicates that server is temporarily overloaded and 503 status code should be returned.
+ */
+public class ServiceUnavailableException extends HttpRequestException {
+
+    /**
+     * HTTP service unavailable response code.
+     */
+    private static final int RESPONSE_CODE = 503;
+
+    /**
+     * Seconds after which client can retry the request.
+     */
+    public static final int RETRY_AFTER = 1;
+
+    public ServiceUnavailableException() {
+        super(RESPONSE_CODE);
+    }
+
+    /**
+     * @param message the detail message
+     */
+    public ServiceUnavailableException(String message) {
+        super(message, RESPONSE_CODE);
+    }
+
+    /**
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause, RESPONSE_CODE);
+    }
+
+    /**
+     * @param cause the cause
+     */
+    public ServiceUnavailableException(Throwable cause) {
+        super(cause, RESPONSE_CODE);
+    }
+
+    /**
+     * @param message            the detail message
+     * @param cause              the cause
+     * @param enableSuppression  whether suppression is enabled or disabled
+     * @param writableStackTrace whether the stack trace should be writable
+     */
+    public ServiceUnavailableException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace, RESPONSE_CODE);
+    }
+
+}
@@ -0,0 +1,20 @@
+package company.crypto.component;
+
+/**
+ * Snapshot of the password hashing pool statistics.
+ *
+ * @param queued    number of tasks waiting in the queue
+ * @param capacity  maximal number of tasks waiting in the queue
+ * @param active    number of threads currently hashing
+ * @param completed number of completed tasks
+ * @param rejected  number of tasks rejected because the queue was full
+ */
+public record HashingStatistics(int queued, int capacity, int active, long completed, long rejected) {
+
+    @Override
+    public String toString() {
+        return "queued=%d/%d, active=%d, completed=%d, rejected=%d"
+                .formatted(queued, capacity, active, completed, rejected);
+    }
+
+}
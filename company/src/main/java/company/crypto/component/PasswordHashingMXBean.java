@@ -0,0 +1,34 @@
+package company.crypto.component;
+
+/**
+ * Management interface of the password hashing pool, registered in the platform MBean server so the queue depth can
+ * be observed while the application is running.
+ */
+public interface PasswordHashingMXBean {
+
+    /**
+     * @return number of tasks waiting in the queue
+     */
+    int getQueued();
+
+    /**
+     * @return maximal number of tasks waiting in the queue
+     */
+    int getCapacity();
+
+    /**
+     * @return number of threads currently hashing
+     */
+    int getActive();
+
+    /**
+     * @return number of completed tasks
+     */
+    long getCompleted();
+
+    /**
+     * @return number of tasks rejected because the queue was full
+     */
+    long getRejected();
+
+}
@@ -0,0 +1,219 @@
+package company.crypto.component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated pool, so CPU heavy key derivation does not occupy request threads nor the
+ * common pool. The pool has fixed number of threads and a bounded queue. When the queue is full new tasks are
+ * rejected right away instead of piling up, callers should report the server as temporarily unavailable. Pool
+ * statistics are available through {@link PasswordHashingMXBean} while the pool is running.
+ */
+public class PasswordHashingService implements PasswordHashingMXBean, AutoCloseable {
+
+    /**
+     * Hash mechanism used in pool threads.
+     */
+    private final Pbkdf2PasswordHash passwordHash;
+
+    /**
+     * Pool with fixed number of threads and bounded queue.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Maximal number of tasks waiting in the queue.
+     */
+    private final int capacity;
+
+    /**
+     * Number of tasks rejected because the queue was full.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Hash of a fixed password made with configured cost, verified instead of a missing user's hash.
+     */
+    private final String dummyHash;
+
+    /**
+     * @param passwordHash hash mechanism used in pool threads
+     * @param threads      number of hashing threads
+     * @param capacity     maximal number of tasks waiting in the queue
+     */
+    public PasswordHashingService(Pbkdf2PasswordHash passwordHash, int threads, int capacity) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Number of threads and queue capacity must be positive");
+        }
+        this.passwordHash = passwordHash;
+        this.capacity = capacity;
+        this.dummyHash = passwordHash.generate("dummy".toCharArray());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * @param password user's password
+     * @return future completed with concatenation of salt and hashed password with salt
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<String> generate(char[] password) throws RejectedExecutionException {
+        return submit(() -> passwordHash.generate(password));
+    }
+
+    /**
+     * Hashes many passwords at once. Passwords are split into at most as many tasks as there are threads, so a batch
+     * takes only few places in the queue.
+     *
+     * @param passwords users' passwords
+     * @return future completed with hashes in order of provided passwords
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<List<String>> generateAll(List<char[]> passwords) throws RejectedExecutionException {
+        int tasks = Math.max(1, Math.min(executor.getMaximumPoolSize(), passwords.size()));
+        int chunk = (passwords.size() + tasks - 1) / tasks;
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>(tasks);
+        for (int from = 0; from < passwords.size(); from += chunk) {
+            List<char[]> part = passwords.subList(from, Math.min(from + chunk, passwords.size()));
+            futures.add(submit(() -> part.stream().map(passwordHash::generate).toList()));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().flatMap(future -> future.join().stream()).toList());
+    }
+
+    /**
+     * @param password       user's password
+     * @param hashedPassword hashed password from database
+     * @return future completed with true if user's password is correct
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Boolean> verify(char[] password, String hashedPassword) throws RejectedExecutionException {
+        return submit(() -> passwordHash.verify(password, hashedPassword));
+    }
+
+    /**
+     * Verifies password against a fixed dummy hash with configured cost. Used when there is no user with the provided
+     * login, so a missing login takes as long as a wrong password and response time does not reveal which logins exist.
+     *
+     * @param password provided password
+     * @return future completed with false once the hash was computed
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Boolean> verifyDummy(char[] password) throws RejectedExecutionException {
+        return submit(() -> {
+            passwordHash.verify(password, dummyHash);//only the cost matters
+            return false;
+        });
+    }
+
+    /**
+     * Checks stored hash parameters without hashing, so it is executed by the caller.
+     *
+     * @param hashedPassword hashed password from database
+     * @return true if the hash should be replaced with a new one
+     */
+    public boolean needsRehash(String hashedPassword) {
+        return passwordHash.needsRehash(hashedPassword);
+    }
+
+    /**
+     * @return current statistics of the pool
+     */
+    public HashingStatistics statistics() {
+        return new HashingStatistics(executor.getQueue().size(), capacity, executor.getActiveCount(),
+                executor.getCompletedTaskCount(), rejected.sum());
+    }
+
+    @Override
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops the pool. Queued tasks are dropped and their futures are completed exceptionally with
+     * {@link RejectedExecutionException}, so callers waiting for them are not left hanging.
+     */
+    @Override
+    public void close() {
+        RejectedExecutionException closed = new RejectedExecutionException("Password hashing pool is closed");
+        for (Runnable dropped : executor.shutdownNow()) {
+            if (dropped instanceof Task<?> task) {
+                task.result().completeExceptionally(closed);
+            }
+        }
+    }
+
+    /**
+     * @param task hashing task
+     * @param <T>  type of the result
+     * @return future completed with the result of the task
+     * @throws RejectedExecutionException if the queue is full
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) throws RejectedExecutionException {
+        Task<T> queued = new Task<>(task, new CompletableFuture<>());
+        try {
+            executor.execute(queued);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+        return queued.result();
+    }
+
+    /**
+     * Queued hashing task, keeps its future so it can be completed when the task is dropped.
+     *
+     * @param task   hashing task
+     * @param result future completed with the result of the task
+     * @param <T>    type of the result
+     */
+    private record Task<T>(Supplier<T> task, CompletableFuture<T> result) implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException | Error ex) {
+                result.completeExceptionally(ex);
+            }
+        }
+
+    }
+
+}
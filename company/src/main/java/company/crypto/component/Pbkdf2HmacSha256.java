@@ -0,0 +1,203 @@
+package company.crypto.component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Password-Based Key Derivation Function 2 (PBKDF2) with HMAC-SHA256 as pseudorandom function, producing the same
+ * output as <code>PBKDF2WithHmacSHA256</code> secret key factory (password encoded as UTF-8).
+ * <p>
+ * The key factory creates key spec, copies of the password and a new key (with its own MAC) on every call. This
+ * implementation keeps per thread {@link Mac} and buffers. The MAC is initialized with the password once per
+ * derivation, so inner and outer pad state is computed once and reused by every iteration; each iteration writes its
+ * output into the same buffer. Buffers holding password and intermediate values are zeroed after the derivation.
+ */
+public class Pbkdf2HmacSha256 {
+
+    /**
+     * Name of the MAC algorithm.
+     */
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Length of the HMAC-SHA256 output.
+     */
+    private static final int MAC_LENGTH = 32;
+
+    /**
+     * Reusable state of the single thread.
+     */
+    private static final class State {
+
+        /**
+         * MAC keyed with the password of the current derivation.
+         */
+        private final Mac mac;
+
+        /**
+         * Output of the last iteration.
+         */
+        private final byte[] u = new byte[MAC_LENGTH];
+
+        /**
+         * Xor of all iterations outputs.
+         */
+        private final byte[] t = new byte[MAC_LENGTH];
+
+        /**
+         * Block index encoded as big endian integer.
+         */
+        private final byte[] index = new byte[4];
+
+        /**
+         * Password encoded as UTF-8, grows when longer password is derived.
+         */
+        private byte[] password = new byte[64];
+
+        /**
+         * Number of used bytes of the password buffer.
+         */
+        private int passwordLength;
+
+        /**
+         * Key view of the password buffer, used only for initializing the MAC.
+         */
+        private final SecretKey key = new SecretKey() {
+
+            @Override
+            public String getAlgorithm() {
+                return ALGORITHM;
+            }
+
+            @Override
+            public String getFormat() {
+                return "RAW";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                return Arrays.copyOf(password, passwordLength);//MAC zeroes returned array
+            }
+
+        };
+
+        private State() {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+    }
+
+    /**
+     * Per thread state.
+     */
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    /**
+     * @param password   password
+     * @param salt       salt
+     * @param iterations number of iterations
+     * @param length     derived key length in bytes
+     * @return derived key
+     */
+    public byte[] derive(char[] password, byte[] salt, int iterations, int length) {
+        byte[] result = new byte[length];
+        derive(password, salt, iterations, result);
+        return result;
+    }
+
+    /**
+     * @param password   password
+     * @param salt       salt
+     * @param iterations number of iterations
+     * @param result     buffer for the derived key, whole buffer is filled
+     * @throws IllegalArgumentException if number of iterations is not positive
+     */
+    public void derive(char[] password, byte[] salt, int iterations, byte[] result) throws IllegalArgumentException {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Number of iterations must be positive");
+        }
+        State state = STATE.get();
+        Mac mac = state.mac;
+        try {
+            encode(state, password);
+            mac.init(state.key);
+            for (int block = 1, offset = 0; offset < result.length; block++, offset += MAC_LENGTH) {
+                state.index[0] = (byte) (block >>> 24);
+                state.index[1] = (byte) (block >>> 16);
+                state.index[2] = (byte) (block >>> 8);
+                state.index[3] = (byte) block;
+                mac.update(salt);
+                mac.update(state.index);
+                mac.doFinal(state.u, 0);
+                System.arraycopy(state.u, 0, state.t, 0, MAC_LENGTH);
+                for (int i = 1; i < iterations; i++) {
+                    mac.update(state.u);
+                    mac.doFinal(state.u, 0);
+                    for (int j = 0; j < MAC_LENGTH; j++) {
+                        state.t[j] ^= state.u[j];
+                    }
+                }
+                System.arraycopy(state.t, 0, result, offset, Math.min(MAC_LENGTH, result.length - offset));
+            }
+        } catch (InvalidKeyException | ShortBufferException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            Arrays.fill(state.password, 0, state.passwordLength, (byte) 0);
+            state.passwordLength = 0;
+            Arrays.fill(state.u, (byte) 0);
+            Arrays.fill(state.t, (byte) 0);
+            try {
+                mac.init(state.key);//replaces password derived pads with the ones of the empty key
+            } catch (InvalidKeyException ex) {
+                mac.reset();
+            }
+        }
+    }
+
+    /**
+     * Encodes password as UTF-8 into the state buffer. Unpaired surrogates are replaced with <code>?</code> like in
+     * the standard encoder.
+     *
+     * @param state    thread state
+     * @param password password
+     */
+    private static void encode(State state, char[] password) {
+        if (state.password.length < password.length * 3) {
+            state.password = new byte[password.length * 3];
+        }
+        byte[] out = state.password;
+        int length = 0;
+        for (int i = 0; i < password.length; i++) {
+            char c = password[i];
+            if (c < 0x80) {
+                out[length++] = (byte) c;
+            } else if (c < 0x800) {
+                out[length++] = (byte) (0xc0 | c >> 6);
+                out[length++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < password.length
+                    && Character.isLowSurrogate(password[i + 1])) {
+                int codePoint = Character.toCodePoint(c, password[++i]);
+                out[length++] = (byte) (0xf0 | codePoint >> 18);
+                out[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                out[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                out[length++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                out[length++] = '?';
+            } else {
+                out[length++] = (byte) (0xe0 | c >> 12);
+                out[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+                out[length++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        state.passwordLength = length;
+    }
+
+}
@@ -1,24 +1,25 @@
 package company.crypto.component;
 
-import lombok.SneakyThrows;
-
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.security.spec.KeySpec;
+import java.time.Duration;
 import java.util.Base64;
 
 /**
  * Components responsible for hashing password. This implementation uses Password-Based Key Derivation Function 2
  * (PBKDF2) with SHA256 hash algorithm used in Hash-based Message Authentication Code (HMAC).
+ * <p>
+ * Hashes are stored in PHC string format <code>$pbkdf2-sha256$i=iterations$salt$hash</code> (salt and hash in Base64
+ * without padding), so every hash carries its own parameters and the cost can be changed without invalidating stored
+ * passwords. Hashes in legacy format (Base64 of concatenated salt and hash, 10000 iterations) are still verified and
+ * reported as needing rehash.
  */
 public class Pbkdf2PasswordHash {
 
     /**
-     * Name of the algorithm.
+     * Identifier of the algorithm in PHC string format.
      */
-    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "$pbkdf2-sha256$";
 
     /**
      * Salt length.
@@ -31,60 +32,157 @@ public class Pbkdf2PasswordHash {
     private static final int HASH_LENGTH = 32;
 
     /**
-     * Number of iterations.
+     * Number of iterations used by legacy format and minimal number of iterations of new hashes.
+     */
+    public static final int DEFAULT_ITERATIONS = 10000;
+
+    /**
+     * Calibrated iterations are rounded up to multiple of this value, so repeated calibrations on the same hardware
+     * give the same result.
+     */
+    private static final int ITERATIONS_STEP = 1000;
+
+    /**
+     * Key derivation function.
+     */
+    private static final Pbkdf2HmacSha256 PBKDF2 = new Pbkdf2HmacSha256();
+
+    /**
+     * Source of salts. Secure random is thread safe, sharing it avoids seeding new instance for every password.
      */
-    private static final int ITERATIONS = 10000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Number of iterations of new hashes.
+     */
+    private final int iterations;
+
+    /**
+     * @param iterations number of iterations of new hashes
+     * @throws IllegalArgumentException if number of iterations is lower than {@link #DEFAULT_ITERATIONS}
+     */
+    public Pbkdf2PasswordHash(int iterations) throws IllegalArgumentException {
+        if (iterations < DEFAULT_ITERATIONS) {
+            throw new IllegalArgumentException("At least %d iterations are required".formatted(DEFAULT_ITERATIONS));
+        }
+        this.iterations = iterations;
+    }
+
+    public Pbkdf2PasswordHash() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Measures key derivation on the current hardware and picks number of iterations taking about the target time.
+     *
+     * @param target target time of single hashing
+     * @return number of iterations, not lower than {@link #DEFAULT_ITERATIONS}
+     */
+    public static int calibrate(Duration target) {
+        char[] password = "calibration".toCharArray();
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] hash = new byte[HASH_LENGTH];
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {//first rounds warm up the code, the fastest is the least disturbed one
+            long start = System.nanoTime();
+            PBKDF2.derive(password, salt, DEFAULT_ITERATIONS, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long iterations = target.toNanos() * DEFAULT_ITERATIONS / Math.max(best, 1);
+        iterations = (iterations + ITERATIONS_STEP - 1) / ITERATIONS_STEP * ITERATIONS_STEP;
+        return (int) Math.min(Integer.MAX_VALUE / ITERATIONS_STEP * ITERATIONS_STEP,
+                Math.max(DEFAULT_ITERATIONS, iterations));
+    }
 
     /**
      * @param password user's password
-     * @return concatenation of salt and hashed password with salt.
+     * @return hash in PHC string format
      */
-    @SneakyThrows
     public String generate(char[] password) {
         byte[] salt = generateSalt();
-        KeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, HASH_LENGTH * 8);
-        SecretKeyFactory factory = SecretKeyFactory.getInstance(ALGORITHM);
-        byte[] hash = factory.generateSecret(spec).getEncoded();
-
-        // Concatenate salt and hash.
-        byte[] saltPlusHash = new byte[SALT_LENGTH + HASH_LENGTH];
-        System.arraycopy(salt, 0, saltPlusHash, 0, SALT_LENGTH);
-        System.arraycopy(hash, 0, saltPlusHash, SALT_LENGTH, HASH_LENGTH);
-
-        // Encode salt plus hash as Base64.
-        return Base64.getEncoder().encodeToString(saltPlusHash);
+        byte[] hash = PBKDF2.derive(password, salt, iterations, HASH_LENGTH);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "i=" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
     }
 
     /**
      * @param password       user's password
-     * @param hashedPassword hashed password from database
+     * @param hashedPassword hashed password from database, in PHC or legacy format
      * @return true if user's password is correct
+     * @throws IllegalArgumentException if hashed password is malformed
+     */
+    public boolean verify(char[] password, String hashedPassword) throws IllegalArgumentException {
+        Parameters parameters = parse(hashedPassword);
+        byte[] computedHash = PBKDF2.derive(password, parameters.salt(), parameters.iterations(),
+                parameters.hash().length);
+
+        // Compare the computed hash with the stored hash.
+        return MessageDigest.isEqual(parameters.hash(), computedHash);
+    }
+
+    /**
+     * @param hashedPassword hashed password from database, in PHC or legacy format
+     * @return true if the hash is in legacy format or uses fewer iterations than new hashes
+     * @throws IllegalArgumentException if hashed password is malformed
+     */
+    public boolean needsRehash(String hashedPassword) throws IllegalArgumentException {
+        return !hashedPassword.startsWith(PREFIX) || parse(hashedPassword).iterations() < iterations;
+    }
+
+    /**
+     * Parameters of stored hash.
+     *
+     * @param iterations number of iterations
+     * @param salt       salt
+     * @param hash       hashed password with salt
      */
-    @SneakyThrows
-    public boolean verify(char[] password, String hashedPassword) {
+    private record Parameters(int iterations, byte[] salt, byte[] hash) {
+
+    }
+
+    /**
+     * @param hashedPassword hashed password from database, in PHC or legacy format
+     * @return parameters of the hash
+     * @throws IllegalArgumentException if hashed password is malformed
+     */
+    private static Parameters parse(String hashedPassword) throws IllegalArgumentException {
+        if (hashedPassword.startsWith(PREFIX)) {
+            String[] parts = hashedPassword.substring(PREFIX.length()).split("\\$");
+            if (parts.length != 3 || !parts[0].startsWith("i=")) {
+                throw new IllegalArgumentException("Malformed password hash");
+            }
+            int iterations = Integer.parseInt(parts[0].substring(2));
+            if (iterations < 1) {
+                throw new IllegalArgumentException("Malformed password hash");
+            }
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] hash = decoder.decode(parts[2]);
+            if (hash.length < SALT_LENGTH) {//empty or truncated hash would match (almost) any password
+                throw new IllegalArgumentException("Malformed password hash");
+            }
+            return new Parameters(iterations, decoder.decode(parts[1]), hash);
+        }
+
+        // Legacy format: Base64 of concatenated salt and hash.
         byte[] saltPlusHash = Base64.getDecoder().decode(hashedPassword);
+        if (saltPlusHash.length != SALT_LENGTH + HASH_LENGTH) {
+            throw new IllegalArgumentException("Malformed password hash");
+        }
         byte[] salt = new byte[SALT_LENGTH];
         byte[] hash = new byte[HASH_LENGTH];
 
         // Separate salt and hash.
         System.arraycopy(saltPlusHash, 0, salt, 0, SALT_LENGTH);
         System.arraycopy(saltPlusHash, SALT_LENGTH, hash, 0, HASH_LENGTH);
-
-        KeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, HASH_LENGTH * 8);
-        SecretKeyFactory factory = SecretKeyFactory.getInstance(ALGORITHM);
-        byte[] computedHash = factory.generateSecret(spec).getEncoded();
-
-        // Compare the computed hash with the stored hash.
-        return MessageDigest.isEqual(hash, computedHash);
+        return new Parameters(DEFAULT_ITERATIONS, salt, hash);
     }
 
     /**
      * @return random salt
      */
     private byte[] generateSalt() {
-        SecureRandom random = new SecureRandom();
         byte[] salt = new byte[SALT_LENGTH];
-        random.nextBytes(salt);
+        RANDOM.nextBytes(salt);
         return salt;
     }
 
@@ -0,0 +1,194 @@
+package company.crypto.component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bounded store of opaque, expiring tokens. Token is 256 bits from secure random encoded as URL safe Base64, so it
+ * can not be guessed and checking it is a single map lookup. Every token expires after the same time from issuing,
+ * so tokens in order of issuing are also in order of expiration. When the store is full the oldest tokens are dropped.
+ * Every value can have only limited number of tokens, issuing more drops the oldest token of the same value, so a
+ * single client repeating logins does not push out tokens of other clients. Tokens are indexed by value, so revoking
+ * all tokens of a value does not scan the store. Tokens are kept only in memory and are lost on restart.
+ *
+ * @param <V> type of the value bound to the token
+ */
+public class TokenStore<V> {
+
+    /**
+     * Token length in bytes.
+     */
+    private static final int TOKEN_LENGTH = 32;
+
+    /**
+     * Source of tokens.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Value bound to the token.
+     *
+     * @param value   bound value
+     * @param expires {@link System#nanoTime()} after which the token is no longer valid
+     */
+    private record Entry<V>(V value, long expires) {
+
+    }
+
+    /**
+     * Valid (or expired but not yet removed) tokens.
+     */
+    private final Map<String, Entry<V>> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Tokens in order of issuing (and expiration), can contain already removed tokens.
+     */
+    private final Queue<String> issued = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Tokens of every value in order of issuing. Token is added and removed while holding its value's key, so tokens
+     * can not be issued for a value while its tokens are revoked.
+     */
+    private final Map<V, Deque<String>> byValue = new ConcurrentHashMap<>();
+
+    /**
+     * Time to live of the token in nanoseconds.
+     */
+    private final long timeToLive;
+
+    /**
+     * Maximal number of stored tokens.
+     */
+    private final int capacity;
+
+    /**
+     * Maximal number of tokens of single value.
+     */
+    private final int limitPerValue;
+
+    /**
+     * @param timeToLive    time after which issued token expires
+     * @param capacity      maximal number of stored tokens
+     * @param limitPerValue maximal number of tokens of single value
+     */
+    public TokenStore(Duration timeToLive, int capacity, int limitPerValue) {
+        if (timeToLive.isNegative() || timeToLive.isZero() || capacity < 1 || limitPerValue < 1) {
+            throw new IllegalArgumentException("Time to live, capacity and limit per value must be positive");
+        }
+        this.timeToLive = timeToLive.toNanos();
+        this.capacity = capacity;
+        this.limitPerValue = limitPerValue;
+    }
+
+    /**
+     * Issues new token. Expired tokens are removed, the oldest token of the value is dropped when the value has too
+     * many tokens and the oldest ones are dropped when the store is full.
+     *
+     * @param value value bound to the token
+     * @return new token
+     */
+    public String issue(V value) {
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.nanoTime();
+        byValue.compute(value, (key, own) -> {
+            Deque<String> result = own != null ? own : new ArrayDeque<>();
+            tokens.put(token, new Entry<>(value, now + timeToLive));
+            result.addLast(token);
+            while (result.size() > limitPerValue) {
+                tokens.remove(result.pollFirst());
+            }
+            return result;
+        });
+        issued.add(token);
+        evict(now);
+        return token;
+    }
+
+    /**
+     * @param token token
+     * @return container (can be empty) with value bound to the token, empty when token is unknown or expired
+     */
+    public Optional<V> find(String token) {
+        Entry<V> entry = tokens.get(token);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expires() - System.nanoTime() < 0) {
+            remove(token);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * @param token token to be revoked
+     */
+    public void revoke(String token) {
+        remove(token);
+    }
+
+    /**
+     * Revokes all tokens bound to the value. Only tokens of the value are visited.
+     *
+     * @param value value of tokens to be revoked
+     */
+    public void revokeAll(V value) {
+        byValue.computeIfPresent(value, (key, own) -> {
+            own.forEach(tokens::remove);
+            return null;
+        });
+    }
+
+    /**
+     * @return number of stored tokens
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Removes expired tokens and the oldest ones over the capacity.
+     *
+     * @param now current {@link System#nanoTime()}
+     */
+    private void evict(long now) {
+        String oldest;
+        while ((oldest = issued.peek()) != null) {
+            Entry<V> entry = tokens.get(oldest);
+            if (entry != null && entry.expires() - now >= 0 && tokens.size() <= capacity) {
+                break;
+            }
+            if (issued.remove(oldest)) {//other thread could have taken it already
+                remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Removes token from the store and from the index of its value.
+     *
+     * @param token token to be removed
+     */
+    private void remove(String token) {
+        Entry<V> entry = tokens.get(token);
+        if (entry == null) {
+            return;
+        }
+        byValue.computeIfPresent(entry.value(), (key, own) -> {
+            tokens.remove(token);
+            own.remove(token);
+            return own.isEmpty() ? null : own;
+        });
+    }
+
+}
@@ -3,50 +3,189 @@ package company.datastore.component;
 import company.device.entity.Device;
 import lombok.extern.java.Log;
 import company.device.entity.Brand;
+import company.device.repository.api.DeviceFilter;
+import company.repository.api.FieldSelection;
+import company.repository.api.Page;
+import company.repository.api.Version;
 import company.serialization.component.CloningUtility;
 import company.user.entity.User;
 
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * For the sake of simplification instead of using real database this example is using a data source object which should
- * be put in servlet context in a single instance. In order to avoid {@link java.util.ConcurrentModificationException}
- * all methods are synchronized. Normally synchronization would be carried on by the database server. Caution, this is
- * very inefficient implementation but can be used to present other mechanisms without obscuration example with ORM
- * usage.
+ * be put in servlet context in a single instance. Every entity type is kept in its own {@link ConcurrentHashMap}
+ * working as a primary index (id to entity), so lookups by id are O(1). Reads are lock-free and writes are atomic per
+ * key ({@link ConcurrentHashMap#compute}), so there is no global monitor. Normally synchronization would be carried on
+ * by the database server. Stored values are never modified in place, every write replaces the whole (cloned) value.
+ * <p>
+ * By default every read returns a deep copy, so callers can not change stored values by reference. In immutable
+ * snapshots mode stored values are treated as frozen snapshots and reads return them without any copying. Writes still
+ * clone the provided value and replace the whole snapshot (copy-on-write), so callers must never modify returned
+ * entities and should build a modified copy instead. Nothing enforces it: entities keep their setters and mutable
+ * fields (e.g. {@link java.util.Date}), so a caller modifying a returned entity silently changes the stored value for
+ * every other reader. The mode is an unsafe opt-in, to be enabled only when all callers are known not to modify
+ * returned entities.
+ * <p>
+ * When {@link WriteAheadLog} is attached every change is appended to the log while holding the changed key and the
+ * writer waits until the record is durable. {@link #snapshot()} briefly blocks all writers to capture consistent state
+ * together with the log position.
+ * <p>
+ * Devices keep their brand and owner as id references resolved through primary indexes when the device is read, so
+ * device writes never copy related entities and device reads never copy the owner.
+ * <p>
+ * Consistent exports use {@link SnapshotView}, which is opened while briefly blocking writers and afterwards is kept
+ * consistent by writers recording values from before their changes.
  */
 @Log
 public class DataStore {
 
     /**
-     * Set of all available Brands.
+     * Maximal number of entities logged in single record by batch operations.
      */
-    private final Set<Brand> Brands = new HashSet<>();
+    private static final int JOURNAL_CHUNK = 10_000;
 
     /**
-     * Set of all devices.
+     * Primary index of all available brands.
      */
-    private final Set<Device> devices = new HashSet<>();
+    private final Map<UUID, Brand> brands = new ConcurrentHashMap<>();
 
     /**
-     * Set of all users.
+     * Primary index of all devices.
      */
-    private final Set<User> users = new HashSet<>();
+    private final Map<UUID, Device> devices = new ConcurrentHashMap<>();
+
+    /**
+     * Primary index of all users.
+     */
+    private final Map<UUID, User> users = new ConcurrentHashMap<>();
+
+    /**
+     * Unique index of users by case-normalised login (login to user id).
+     */
+    private final Map<String, UUID> usersByLogin = new ConcurrentHashMap<>();
+
+    /**
+     * Ordered index of brands' ids used for paging.
+     */
+    private final NavigableSet<UUID> brandIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Ordered index of devices' ids used for paging.
+     */
+    private final NavigableSet<UUID> deviceIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Ordered index of users' ids used for paging.
+     */
+    private final NavigableSet<UUID> userIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Secondary index of devices by owner (user id to ordered device ids).
+     */
+    private final Map<UUID, NavigableSet<UUID>> devicesByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Secondary index of devices by brand (brand id to ordered device ids).
+     */
+    private final Map<UUID, NavigableSet<UUID>> devicesByBrand = new ConcurrentHashMap<>();
+
+    /**
+     * Sequence used for versioning, incremented on every write.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Versions of all stored entities (entity id to version). Ids are unique across all entity types.
+     */
+    private final Map<UUID, Version> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Version of the whole brands collection.
+     */
+    private final AtomicReference<Version> brandsVersion = new AtomicReference<>(nextVersion());
+
+    /**
+     * Version of the whole devices collection.
+     */
+    private final AtomicReference<Version> devicesVersion = new AtomicReference<>(nextVersion());
+
+    /**
+     * Version of the whole users collection.
+     */
+    private final AtomicReference<Version> usersVersion = new AtomicReference<>(nextVersion());
 
     /**
      * Component used for creating deep copies.
      */
     private final CloningUtility cloningUtility;
 
+    /**
+     * True if stored values are shared with callers as immutable snapshots instead of being copied on read.
+     */
+    private final boolean immutableSnapshots;
+
+    /**
+     * Writers hold shared lock for the time of the change, snapshot holds exclusive lock while capturing the state.
+     * Readers never lock.
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * Open point-in-time views, writers record preimages of changed keys in them.
+     */
+    private final List<SnapshotView<?>> views = new CopyOnWriteArrayList<>();
+
+    /**
+     * Log of changes, null when changes are not persisted.
+     */
+    private volatile WriteAheadLog journal;
+
     /**
      * @param cloningUtility component used for creating deep copies
      */
     public DataStore(CloningUtility cloningUtility) {
+        this(cloningUtility, false);
+    }
+
+    /**
+     * @param cloningUtility     component used for creating deep copies
+     * @param immutableSnapshots true if reads should return stored snapshots without copying, unsafe unless no caller
+     *                           modifies returned entities
+     */
+    public DataStore(CloningUtility cloningUtility, boolean immutableSnapshots) {
         this.cloningUtility = cloningUtility;
+        this.immutableSnapshots = immutableSnapshots;
     }
 
     /**
@@ -54,23 +193,71 @@ public class DataStore {
      *
      * @return list (can be empty) of all Brands
      */
-    public synchronized List<Brand> findAllBrands() {
-        return Brands.stream()
-                .map(cloningUtility::clone)
+    public List<Brand> findAllBrands() {
+        return brands.values().stream()
+                .map(this::read)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams all Brands lazily, so only one element at a time is read (copied). Stream is weakly consistent,
+     * it reflects state of the store at some point at or since its creation.
+     *
+     * @return stream (can be empty) of all Brands
+     */
+    public Stream<Brand> streamAllBrands() {
+        return brands.values().stream()
+                .map(this::read);
+    }
+
+    /**
+     * Streams all brands as they were when the stream was created, see {@link SnapshotView}. Writers are blocked
+     * only while the view is opened. The stream must be closed.
+     *
+     * @return stream (can be empty) of all brands from the moment of the call
+     */
+    public Stream<Brand> streamBrandsSnapshot() {
+        return streamSnapshot(brands, brandIds, this::read);
+    }
+
+    /**
+     * Seeks for single Brand. Only the matching Brand is read.
+     *
+     * @param id Brand's id
+     * @return container (can be empty) with Brand
+     */
+    public Optional<Brand> findBrand(UUID id) {
+        return Optional.ofNullable(brands.get(id))
+                .map(this::read);
+    }
+
+    /**
+     * Seeks for single page of Brands ordered by id. Only Brands on the page are read.
+     *
+     * @param cursor id of the last Brand on previous page or null for the first page
+     * @param limit  maximal number of Brands on the page
+     * @return page of Brands
+     */
+    public Page<Brand, UUID> findBrandsPage(UUID cursor, int limit) {
+        return findPage(brandIds, cursor, brands, brand -> true, this::read, limit);
+    }
+
     /**
      * Stores new Brand.
      *
      * @param value new Brand to be stored
      * @throws IllegalArgumentException if Brand with provided id already exists
      */
-    public synchronized void createBrand(Brand value) throws IllegalArgumentException {
-        if (Brands.stream().anyMatch(Brand -> Brand.getId().equals(value.getId()))) {
-            throw new IllegalArgumentException("The Brand id \"%s\" is not unique".formatted(value.getId()));
-        }
-        Brands.add(cloningUtility.clone(value));
+    public void createBrand(Brand value) throws IllegalArgumentException {
+        Brand entity = cloningUtility.clone(value);
+        write(brands, value.getId(), WriteAheadLog.Operation.CREATE_BRAND, () -> entity, (id, current) -> {
+            if (current != null) {
+                throw new IllegalArgumentException("The Brand id \"%s\" is not unique".formatted(id));
+            }
+            brandIds.add(id);
+            return entity;
+        }, (current, result) -> brandIds.remove(result.getId()));
+        touch(brands, value.getId(), brandsVersion);
     }
 
     /**
@@ -78,12 +265,119 @@ public class DataStore {
      *
      * @return list (can be empty) of all devices
      */
-    public synchronized List<Device> findAllDevices() {
-        return devices.stream()
-                .map(cloningUtility::clone)
+    public List<Device> findAllDevices() {
+        return devices.values().stream()
+                .map(this::readDevice)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams all devices lazily, so only one element at a time is read (copied). Stream is weakly consistent,
+     * it reflects state of the store at some point at or since its creation.
+     *
+     * @return stream (can be empty) of all devices
+     */
+    public Stream<Device> streamAllDevices() {
+        return devices.values().stream()
+                .map(this::readDevice);
+    }
+
+    /**
+     * Streams all devices as they were when the stream was created, see {@link SnapshotView}. Writers are blocked
+     * only while the view is opened. The stream must be closed.
+     *
+     * @return stream (can be empty) of all devices from the moment of the call
+     */
+    public Stream<Device> streamDevicesSnapshot() {
+        return streamSnapshot(devices, deviceIds, this::readDevice);
+    }
+
+    /**
+     * Seeks for single device. Only the matching device is read.
+     *
+     * @param id device's id
+     * @return container (can be empty) with device
+     */
+    public Optional<Device> findDevice(UUID id) {
+        return Optional.ofNullable(devices.get(id))
+                .map(this::readDevice);
+    }
+
+    /**
+     * Seeks for single device and reads only selected fields. Unselected fields (including brand) are not copied.
+     *
+     * @param id     device's id
+     * @param fields names of selected fields
+     * @return container (can be empty) with partial device
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Optional<Device> findDevice(UUID id, Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.DEVICE_FIELDS);
+        return Optional.ofNullable(devices.get(id))
+                .map(device -> project(device, fields));
+    }
+
+    /**
+     * Streams all devices lazily reading only selected fields. Unselected fields (including brand) are not copied.
+     *
+     * @param fields names of selected fields
+     * @return stream (can be empty) of all partial devices
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Stream<Device> streamAllDevices(Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.DEVICE_FIELDS);
+        return devices.values().stream()
+                .map(device -> project(device, fields));
+    }
+
+    /**
+     * Seeks for all devices of the user using secondary index. Cost depends only on number of found devices.
+     *
+     * @param userId user's id
+     * @return list (can be empty) of user's devices
+     */
+    public List<Device> findAllDevicesByUser(UUID userId) {
+        return findAllDevices(devicesByUser.getOrDefault(userId, Collections.emptyNavigableSet()));
+    }
+
+    /**
+     * Seeks for all devices of the brand using secondary index. Cost depends only on number of found devices.
+     *
+     * @param brandId brand's id
+     * @return list (can be empty) of brand's devices
+     */
+    public List<Device> findAllDevicesByBrand(UUID brandId) {
+        return findAllDevices(devicesByBrand.getOrDefault(brandId, Collections.emptyNavigableSet()));
+    }
+
+    /**
+     * @param ids devices' ids taken from secondary index
+     * @return list (can be empty) of devices which still exist
+     */
+    private List<Device> findAllDevices(Set<UUID> ids) {
+        return ids.stream()
+                .map(devices::get)
+                .filter(Objects::nonNull)
+                .map(this::readDevice)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Seeks for single page of devices ordered by id. When filter contains brand, brand's secondary index is used.
+     * Filter is applied to stored values, only devices on the page are read.
+     *
+     * @param filter devices' criteria
+     * @param cursor id of the last device on previous page or null for the first page
+     * @param limit  maximal number of devices on the page
+     * @return page of devices
+     */
+    public Page<Device, UUID> findDevicesPage(DeviceFilter filter, UUID cursor, int limit) {
+        NavigableSet<UUID> ids = filter.brand() != null
+                ? devicesByBrand.getOrDefault(filter.brand(), Collections.emptyNavigableSet())
+                : deviceIds;
+        return findPage(ids, cursor, devices, filter, this::readDevice, limit);
+    }
+
     /**
      * Stores new device.
      *
@@ -91,12 +385,64 @@ public class DataStore {
      * @throws IllegalArgumentException if device with provided id already exists or when {@link User} or
      *                                  {@link Brand} with provided uuid does not exist
      */
-    public synchronized void createDevice(Device value) throws IllegalArgumentException {
-        if (devices.stream().anyMatch(device -> device.getId().equals(value.getId()))) {
-            throw new IllegalArgumentException("The devices id \"%s\" is not unique".formatted(value.getId()));
+    public void createDevice(Device value) throws IllegalArgumentException {
+        Device entity = referenced(value);
+        awaitDurable(value.getId(), withRelationships(entity, () -> apply(devices, value.getId(),
+                WriteAheadLog.Operation.CREATE_DEVICE, () -> entity, (id, current) -> {
+                    if (current != null) {
+                        throw new IllegalArgumentException("The devices id \"%s\" is not unique".formatted(id));
+                    }
+                    deviceIds.add(id);
+                    index(entity);
+                    return entity;
+                }, (current, result) -> {
+                    unindex(result);
+                    deviceIds.remove(result.getId());
+                })));
+        touch(devices, value.getId(), devicesVersion);
+    }
+
+    /**
+     * Stores new devices all at once. The whole batch is validated and applied while holding exclusive lock, so other
+     * writers can not interleave with it and either all devices are stored or none. Readers are not blocked and may
+     * observe part of the batch while it is applied. Devices are logged in chunks of {@link #JOURNAL_CHUNK}, so after
+     * a crash during the batch only whole leading chunks can be recovered.
+     *
+     * @param values new devices to be stored
+     * @throws IllegalArgumentException if any device has no id, its id is not unique (also within the batch) or when
+     *                                  {@link User} or {@link Brand} with provided uuid does not exist
+     */
+    public void createDevices(Collection<Device> values) throws IllegalArgumentException {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<Device> payloads = values.stream().map(DataStore::referenced).toList();
+        List<byte[]> records = journal != null ? serializeChunks(payloads) : null;//serialized before blocking writers
+        List<CompletableFuture<Long>> durable;
+        checkpointLock.writeLock().lock();
+        try {
+            Set<UUID> ids = new HashSet<>();
+            for (Device entity : payloads) {
+                UUID id = requireId(entity.getId());
+                if (!ids.add(id) || devices.containsKey(id)) {
+                    throw new IllegalArgumentException("The devices id \"%s\" is not unique".formatted(id));
+                }
+                requireRelationships(entity);
+            }
+            durable = append(WriteAheadLog.Operation.CREATE_DEVICES, payloads, records);
+            Version version = nextVersion();
+            for (Device entity : payloads) {
+                record(devices, entity.getId(), null);
+                devices.put(entity.getId(), entity);
+                deviceIds.add(entity.getId());
+                index(entity);
+                versions.put(entity.getId(), version);
+            }
+            devicesVersion.set(version);
+        } finally {
+            checkpointLock.writeLock().unlock();
         }
-        Device entity = cloneWithRelationships(value);
-        devices.add(entity);
+        awaitDurable(durable);
     }
 
     /**
@@ -106,13 +452,21 @@ public class DataStore {
      * @throws IllegalArgumentException if device with the same id does not exist or when {@link User} or
      *                                  {@link Brand} with provided uuid does not exist
      */
-    public synchronized void updateDevice(Device value) throws IllegalArgumentException {
-        Device entity = cloneWithRelationships(value);
-        if (devices.removeIf(device -> device.getId().equals(value.getId()))) {
-            devices.add(entity);
-        } else {
-            throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(value.getId()));
-        }
+    public void updateDevice(Device value) throws IllegalArgumentException {
+        Device entity = referenced(value);
+        awaitDurable(value.getId(), withRelationships(entity, () -> apply(devices, value.getId(),
+                WriteAheadLog.Operation.UPDATE_DEVICE, () -> entity, (id, current) -> {
+                    if (current == null) {
+                        throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(id));
+                    }
+                    unindex(current);
+                    index(entity);
+                    return entity;
+                }, (current, result) -> {
+                    unindex(result);
+                    index(current);
+                })));
+        touch(devices, value.getId(), devicesVersion);
     }
 
     /**
@@ -121,10 +475,19 @@ public class DataStore {
      * @param id id of device to be deleted
      * @throws IllegalArgumentException if device with provided id does not exist
      */
-    public synchronized void deleteDevice(UUID id) throws IllegalArgumentException {
-        if (!devices.removeIf(device -> device.getId().equals(id))) {
-            throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(id));
-        }
+    public void deleteDevice(UUID id) throws IllegalArgumentException {
+        write(devices, id, WriteAheadLog.Operation.DELETE_DEVICE, () -> id, (key, current) -> {
+            if (current == null) {
+                throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(key));
+            }
+            unindex(current);
+            deviceIds.remove(key);
+            return null;
+        }, (current, result) -> {
+            deviceIds.add(current.getId());
+            index(current);
+        });
+        remove(id, devicesVersion);
     }
 
     /**
@@ -132,64 +495,226 @@ public class DataStore {
      *
      * @return list (can be empty) of all users
      */
-    public synchronized List<User> findAllUsers() {
-        return users.stream()
-                .map(cloningUtility::clone)
+    public List<User> findAllUsers() {
+        return users.values().stream()
+                .map(this::read)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams all users lazily, so only one element at a time is read (copied). Stream is weakly consistent,
+     * it reflects state of the store at some point at or since its creation.
+     *
+     * @return stream (can be empty) of all users
+     */
+    public Stream<User> streamAllUsers() {
+        return users.values().stream()
+                .map(this::read);
+    }
+
+    /**
+     * Streams all users as they were when the stream was created, see {@link SnapshotView}. Writers are blocked
+     * only while the view is opened. The stream must be closed.
+     *
+     * @return stream (can be empty) of all users from the moment of the call
+     */
+    public Stream<User> streamUsersSnapshot() {
+        return streamSnapshot(users, userIds, this::read);
+    }
+
+    /**
+     * Seeks for single user. Only the matching user is read.
+     *
+     * @param id user's id
+     * @return container (can be empty) with user
+     */
+    public Optional<User> findUser(UUID id) {
+        return Optional.ofNullable(users.get(id))
+                .map(this::read);
+    }
+
+    /**
+     * Seeks for single user and reads only selected fields.
+     *
+     * @param id     user's id
+     * @param fields names of selected fields
+     * @return container (can be empty) with partial user
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Optional<User> findUser(UUID id, Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.USER_FIELDS);
+        return Optional.ofNullable(users.get(id))
+                .map(user -> FieldSelection.project(user, fields));
+    }
+
+    /**
+     * Seeks for single user using unique login index. Login is compared case-insensitively. Only the matching user is
+     * read.
+     *
+     * @param login user's login
+     * @return container (can be empty) with user
+     */
+    public Optional<User> findUserByLogin(String login) {
+        return Optional.ofNullable(login)
+                .map(DataStore::normalizeLogin)
+                .map(usersByLogin::get)
+                .flatMap(this::findUser);
+    }
+
+    /**
+     * Seeks for single page of users ordered by id. Only users on the page are read.
+     *
+     * @param cursor id of the last user on previous page or null for the first page
+     * @param limit  maximal number of users on the page
+     * @return page of users
+     */
+    public Page<User, UUID> findUsersPage(UUID cursor, int limit) {
+        return findPage(userIds, cursor, users, user -> true, this::read, limit);
+    }
+
     /**
      * Stores new user.
      *
      * @param value new user to be stored
-     * @throws IllegalArgumentException if user with provided id already exists
+     * @throws IllegalArgumentException if user with provided id or login already exists
+     */
+    public void createUser(User value) throws IllegalArgumentException {
+        User entity = cloningUtility.clone(value);
+        write(users, value.getId(), WriteAheadLog.Operation.CREATE_USER, () -> entity, (id, current) -> {
+            if (current != null) {
+                throw new IllegalArgumentException("The user id \"%s\" is not unique".formatted(id));
+            }
+            reserveLogin(entity.getLogin(), id);
+            userIds.add(id);
+            return entity;
+        }, (current, result) -> {
+            userIds.remove(result.getId());
+            releaseLogin(result.getLogin(), result.getId());
+        });
+        touch(users, value.getId(), usersVersion);
+    }
+
+    /**
+     * Stores new users all at once. The whole batch is validated and applied while holding exclusive lock, so other
+     * writers can not interleave with it and either all users are stored or none (see
+     * {@link #createDevices(Collection)}).
+     *
+     * @param values new users to be stored
+     * @throws IllegalArgumentException if any user has no id, its id or login is not unique (also within the batch)
      */
-    public synchronized void createUser(User value) throws IllegalArgumentException {
-        if (users.stream().anyMatch(user -> user.getId().equals(value.getId()))) {
-            throw new IllegalArgumentException("The user id \"%s\" is not unique".formatted(value.getId()));
+    public void createUsers(Collection<User> values) throws IllegalArgumentException {
+        if (values.isEmpty()) {
+            return;
         }
-        users.add(cloningUtility.clone(value));
+        List<User> entities = values.stream().map(cloningUtility::clone).toList();
+        List<byte[]> records = journal != null ? serializeChunks(entities) : null;//serialized before blocking writers
+        List<CompletableFuture<Long>> durable;
+        checkpointLock.writeLock().lock();
+        try {
+            Set<UUID> ids = new HashSet<>();
+            Set<String> logins = new HashSet<>();
+            for (User entity : entities) {
+                UUID id = requireId(entity.getId());
+                if (!ids.add(id) || users.containsKey(id)) {
+                    throw new IllegalArgumentException("The user id \"%s\" is not unique".formatted(id));
+                }
+                String login = normalizeLogin(entity.getLogin());
+                if (login != null && (!logins.add(login) || usersByLogin.containsKey(login))) {
+                    throw new IllegalArgumentException("The user login \"%s\" is not unique".formatted(entity.getLogin()));
+                }
+            }
+            durable = append(WriteAheadLog.Operation.CREATE_USERS, entities, records);
+            Version version = nextVersion();
+            for (User entity : entities) {
+                record(users, entity.getId(), null);
+                users.put(entity.getId(), entity);
+                reserveLogin(entity.getLogin(), entity.getId());
+                userIds.add(entity.getId());
+                versions.put(entity.getId(), version);
+            }
+            usersVersion.set(version);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        awaitDurable(durable);
     }
 
     /**
      * Updates existing user.
      *
      * @param value user to be updated
-     * @throws IllegalArgumentException if user with the same id does not exist
+     * @throws IllegalArgumentException if user with the same id does not exist or new login is already taken
      */
-    public synchronized void updateUser(User value) throws IllegalArgumentException {
-        if (users.removeIf(user -> user.getId().equals(value.getId()))) {
-            users.add(cloningUtility.clone(value));
-        } else {
-            throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(value.getId()));
-        }
+    public void updateUser(User value) throws IllegalArgumentException {
+        User entity = cloningUtility.clone(value);
+        write(users, value.getId(), WriteAheadLog.Operation.UPDATE_USER, () -> entity, (id, current) -> {
+            if (current == null) {
+                throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(id));
+            }
+            if (!Objects.equals(normalizeLogin(current.getLogin()), normalizeLogin(entity.getLogin()))) {
+                reserveLogin(entity.getLogin(), id);
+                releaseLogin(current.getLogin(), id);
+            }
+            return entity;
+        }, (current, result) -> {
+            if (!Objects.equals(normalizeLogin(current.getLogin()), normalizeLogin(result.getLogin()))) {
+                reserveLogin(current.getLogin(), current.getId());
+                releaseLogin(result.getLogin(), result.getId());
+            }
+        });
+        touch(users, value.getId(), usersVersion);
     }
 
     /**
-     * Clones existing device and updates relationships for values in storage
+     * Applies change of the device after checking that related entities exist. The change is applied while holding
+     * the owner's key in users primary index, so the owner can not be deleted between the check and the change (nor
+     * its devices index entry re-created after the deletion) and the change is logged before the owner's deletion.
+     * Brands are never deleted, so checking their presence is enough. Lookups use primary indexes, so the cost does
+     * not depend on number of stored entities.
      *
-     * @param value device
-     * @return cloned value with updated relationships
+     * @param device device with relationships reduced to ids
+     * @param change change of the device in primary index
+     * @return future completed when the change is durable, null if log is not attached
      * @throws IllegalArgumentException when {@link User} or {@link Brand} with provided uuid does not exist
      */
-    private Device cloneWithRelationships(Device value) {
-        Device entity = cloningUtility.clone(value);
-
-        if (entity.getUser() != null) {
-            entity.setUser(users.stream()
-                    .filter(user -> user.getId().equals(value.getUser().getId()))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("No user with id \"%s\".".formatted(value.getUser().getId()))));
+    private CompletableFuture<Long> withRelationships(Device device, Supplier<CompletableFuture<Long>> change)
+            throws IllegalArgumentException {
+        if (device.getBrand() != null && !brands.containsKey(device.getBrand().getId())) {
+            throw new IllegalArgumentException("No Brand with id \"%s\".".formatted(device.getBrand().getId()));
         }
-
-        if (entity.getBrand() != null) {
-            entity.setBrand(Brands.stream()
-                    .filter(Brand -> Brand.getId().equals(value.getBrand().getId()))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("No Brand with id \"%s\".".formatted(value.getBrand().getId()))));
+        if (device.getUser() == null) {
+            return change.get();
+        }
+        checkpointLock.readLock().lock();//taken before any key like by other writers, snapshot could deadlock otherwise
+        try {
+            AtomicReference<CompletableFuture<Long>> durable = new AtomicReference<>();
+            users.compute(device.getUser().getId(), (id, user) -> {
+                if (user == null) {
+                    throw new IllegalArgumentException("No user with id \"%s\".".formatted(id));
+                }
+                durable.set(change.get());
+                return user;
+            });
+            return durable.get();
+        } finally {
+            checkpointLock.readLock().unlock();
         }
+    }
 
-        return entity;
+    /**
+     * Checks related entities of the device. Enough only while holding exclusive lock, otherwise see
+     * {@link #withRelationships(Device, Supplier)}.
+     *
+     * @param device device with relationships
+     * @throws IllegalArgumentException when {@link User} or {@link Brand} with provided uuid does not exist
+     */
+    private void requireRelationships(Device device) throws IllegalArgumentException {
+        if (device.getUser() != null && !users.containsKey(device.getUser().getId())) {
+            throw new IllegalArgumentException("No user with id \"%s\".".formatted(device.getUser().getId()));
+        }
+        if (device.getBrand() != null && !brands.containsKey(device.getBrand().getId())) {
+            throw new IllegalArgumentException("No Brand with id \"%s\".".formatted(device.getBrand().getId()));
+        }
     }
 
     /**
@@ -198,10 +723,560 @@ public class DataStore {
      * @param id id of user to be deleted
      * @throws IllegalArgumentException if user with provided id does not exist
      */
-    public synchronized void deleteUser(UUID id) throws IllegalArgumentException {
-        if (!users.removeIf(user -> user.getId().equals(id))) {
-            throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(id));
+    public void deleteUser(UUID id) throws IllegalArgumentException {
+        write(users, id, WriteAheadLog.Operation.DELETE_USER, () -> id, (key, current) -> {
+            if (current == null) {
+                throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(key));
+            }
+            releaseLogin(current.getLogin(), key);
+            userIds.remove(key);
+            return null;
+        }, (current, result) -> {
+            reserveLogin(current.getLogin(), current.getId());
+            userIds.add(current.getId());
+        });
+        remove(id, usersVersion);
+        devicesByUser.remove(id);//devices are indexed only while holding the owner's key, so none can be added now
+    }
+
+    /**
+     * Starts logging all changes. Should be called after the state was recovered.
+     *
+     * @param journal log of changes
+     */
+    public void attach(WriteAheadLog journal) {
+        checkpointLock.writeLock().lock();
+        try {
+            this.journal = journal;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops logging changes. Writers which already appended their records are not affected.
+     *
+     * @return detached log (can be null)
+     */
+    public WriteAheadLog detach() {
+        checkpointLock.writeLock().lock();
+        try {
+            WriteAheadLog detached = journal;
+            journal = null;
+            return detached;
+        } finally {
+            checkpointLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Captures consistent state of the store. Writers are blocked only while references are collected and the log is
+     * rotated, serializing the snapshot is left to the caller.
+     *
+     * @return current state with position of the attached log
+     */
+    public Snapshot snapshot() {
+        checkpointLock.writeLock().lock();
+        try {
+            long position = journal != null ? journal.rotate() : 0;
+            return new Snapshot(position, List.copyOf(brands.values()), List.copyOf(users.values()),
+                    List.copyOf(devices.values()));
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads all entities from the snapshot. Should be called on empty store before attaching the log. Entities are
+     * stored without copying, so snapshot must not be used afterwards. Primary and secondary indexes are built in
+     * parallel in the pool, brands and users first, as devices are linked to them. Devices of deleted users are
+     * restored without the owner.
+     *
+     * @param snapshot stored state
+     * @param pool     pool building indexes
+     * @throws IllegalArgumentException if snapshot contains duplicated entities
+     */
+    public void restore(Snapshot snapshot, ForkJoinPool pool) throws IllegalArgumentException {
+        Version version = nextVersion();
+        pool.submit(() -> snapshot.brands().parallelStream().forEach(brand -> {
+            load(brands, brand.getId(), brand, version);
+            brandIds.add(brand.getId());
+        })).join();
+        pool.submit(() -> snapshot.users().parallelStream().forEach(user -> {
+            load(users, user.getId(), user, version);
+            reserveLogin(user.getLogin(), user.getId());
+            userIds.add(user.getId());
+        })).join();
+        pool.submit(() -> snapshot.devices().parallelStream().forEach(device -> {
+            Device entity = referenced(device);
+            if (entity.getUser() != null && !users.containsKey(entity.getUser().getId())) {
+                entity.setUser(null);
+            }
+            load(devices, entity.getId(), entity, version);
+            deviceIds.add(entity.getId());
+            index(entity);
+        })).join();
+        brandsVersion.set(version);
+        usersVersion.set(version);
+        devicesVersion.set(version);
+    }
+
+    /**
+     * Seeks for version of single entity of any type.
+     *
+     * @param id entity's id
+     * @return container (can be empty) with entity's version
+     */
+    public Optional<Version> findVersion(UUID id) {
+        return Optional.ofNullable(versions.get(id));
+    }
+
+    /**
+     * @return version of the whole brands collection
+     */
+    public Version brandsVersion() {
+        return brandsVersion.get();
+    }
+
+    /**
+     * @return version of the whole devices collection
+     */
+    public Version devicesVersion() {
+        return devicesVersion.get();
+    }
+
+    /**
+     * @return version of the whole users collection
+     */
+    public Version usersVersion() {
+        return usersVersion.get();
+    }
+
+    /**
+     * Puts restored value into primary index.
+     *
+     * @param primary primary index
+     * @param id      value's id
+     * @param value   restored value
+     * @param version version of all restored values
+     * @param <V>     type of the value
+     * @throws IllegalArgumentException if id is not unique
+     */
+    private <V> void load(Map<UUID, V> primary, UUID id, V value, Version version) throws IllegalArgumentException {
+        if (primary.putIfAbsent(id, value) != null) {
+            throw new IllegalArgumentException("The id \"%s\" is not unique".formatted(id));
+        }
+        versions.put(id, version);
+    }
+
+    /**
+     * Applies change of single key in primary index. When log is attached, the change is appended to the log while
+     * holding the key, so records of the same entity are ordered the same as changes, and the method returns when the
+     * record is durable.
+     *
+     * @param primary   primary index
+     * @param id        changed key
+     * @param operation logged operation
+     * @param payload   supplier of logged payload (entity or id), called only when log is attached
+     * @param change    remapping function applied to the key, should throw before any side effects if change is not
+     *                  allowed
+     * @param undo      reverts side effects of the change when it can not be logged, accepts the previous and the
+     *                  new value
+     * @param <V>       type of the value
+     * @throws IllegalArgumentException if change is not allowed
+     * @throws IllegalStateException    if change could not be logged
+     */
+    private <V> void write(Map<UUID, V> primary, UUID id, WriteAheadLog.Operation operation,
+                           Supplier<? extends Serializable> payload, BiFunction<UUID, V, V> change,
+                           BiConsumer<V, V> undo) throws IllegalArgumentException, IllegalStateException {
+        awaitDurable(id, apply(primary, id, operation, payload, change, undo));
+    }
+
+    /**
+     * Applies change like {@link #write(Map, UUID, WriteAheadLog.Operation, Supplier, BiFunction, BiConsumer)}
+     * without waiting until the change is durable. Side effects of the change (ids, secondary and unique indexes) are
+     * reverted when the record can not be appended, so the primary index stays unchanged and nothing else refers to
+     * the rejected value.
+     *
+     * @param primary   primary index
+     * @param id        changed key
+     * @param operation logged operation
+     * @param payload   supplier of logged payload (entity or id), called only when log is attached
+     * @param change    remapping function applied to the key
+     * @param undo      reverts side effects of the change, accepts the previous and the new value
+     * @param <V>       type of the value
+     * @return future completed when the change is durable, null if log is not attached
+     * @throws IllegalArgumentException if change is not allowed
+     * @throws IllegalStateException    if change could not be logged
+     */
+    private <V> CompletableFuture<Long> apply(Map<UUID, V> primary, UUID id, WriteAheadLog.Operation operation,
+                                              Supplier<? extends Serializable> payload, BiFunction<UUID, V, V> change,
+                                              BiConsumer<V, V> undo)
+            throws IllegalArgumentException, IllegalStateException {
+        checkpointLock.readLock().lock();
+        try {
+            BiFunction<UUID, V, V> recorded = views.isEmpty() ? change : (key, current) -> {
+                record(primary, key, current);
+                return change.apply(key, current);
+            };
+            WriteAheadLog log = journal;
+            if (log == null) {
+                primary.compute(id, recorded);
+                return null;
+            }
+            byte[] logged = WriteAheadLog.serialize(payload.get());
+            AtomicReference<CompletableFuture<Long>> appended = new AtomicReference<>();
+            primary.compute(id, (key, current) -> {
+                V result = recorded.apply(key, current);
+                try {
+                    appended.set(log.append(operation, logged));
+                } catch (IllegalStateException ex) {
+                    undo.accept(current, result);
+                    throw ex;
+                }
+                return result;
+            });
+            return appended.get();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until the change is durable.
+     *
+     * @param id      changed key
+     * @param durable future completed when the change is durable, null if log is not attached
+     * @throws IllegalStateException if the change could not be persisted
+     */
+    private static void awaitDurable(UUID id, CompletableFuture<Long> durable) throws IllegalStateException {
+        if (durable == null) {
+            return;
+        }
+        try {
+            durable.join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("The change of \"%s\" could not be persisted".formatted(id), ex.getCause());
+        }
+    }
+
+    /**
+     * Opens point-in-time view of the primary index. Opening blocks writers, so no change is half recorded.
+     *
+     * @param primary primary index
+     * @param ids     ordered index of ids
+     * @param reader  prepares stored value to be returned to the caller
+     * @param <V>     type of the value
+     * @return lazy stream of values from the moment of the call, closing it closes the view
+     */
+    private <V extends Serializable> Stream<V> streamSnapshot(Map<UUID, V> primary, NavigableSet<UUID> ids,
+                                                              UnaryOperator<V> reader) {
+        SnapshotView<V> view = new SnapshotView<>(primary);
+        checkpointLock.writeLock().lock();
+        try {
+            views.add(view);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        return view.stream(ids)
+                .map(reader)
+                .onClose(() -> views.remove(view));
+    }
+
+    /**
+     * Records value of the key before the change in all views open on the primary index. Must be called while
+     * holding the key (or exclusive lock), before the change is applied.
+     *
+     * @param primary primary index
+     * @param id      changed key
+     * @param current current value (null if absent)
+     * @param <V>     type of the value
+     */
+    @SuppressWarnings("unchecked")
+    private <V> void record(Map<UUID, V> primary, UUID id, V current) {
+        for (SnapshotView<?> view : views) {
+            if (view.reads(primary)) {
+                ((SnapshotView<V>) view).record(id, current);
+            }
+        }
+    }
+
+    /**
+     * Appends batch of changes to the attached log. Should be called while holding exclusive lock, before the batch is
+     * applied.
+     *
+     * @param operation logged operation, its payload is a list of entities
+     * @param payloads  logged entities
+     * @param records   entities already serialized in chunks or null if they were not serialized yet
+     * @return futures completed when chunks are durable, empty if log is not attached
+     * @throws IllegalStateException if log is closed or failed
+     */
+    private List<CompletableFuture<Long>> append(WriteAheadLog.Operation operation,
+                                                 List<? extends Serializable> payloads, List<byte[]> records)
+            throws IllegalStateException {
+        WriteAheadLog log = journal;
+        if (log == null) {
+            return List.of();
+        }
+        return (records != null ? records : serializeChunks(payloads)).stream()
+                .map(record -> log.append(operation, record))
+                .toList();
+    }
+
+    /**
+     * @param payloads logged entities
+     * @return entities serialized as lists of at most {@link #JOURNAL_CHUNK} elements
+     */
+    private static List<byte[]> serializeChunks(List<? extends Serializable> payloads) {
+        List<byte[]> records = new ArrayList<>();
+        for (int from = 0; from < payloads.size(); from += JOURNAL_CHUNK) {
+            records.add(WriteAheadLog.serialize(
+                    new ArrayList<>(payloads.subList(from, Math.min(from + JOURNAL_CHUNK, payloads.size())))));
+        }
+        return records;
+    }
+
+    /**
+     * Waits until all records of the batch are durable.
+     *
+     * @param durable futures completed when records are durable
+     * @throws IllegalStateException if any record could not be persisted
+     */
+    private static void awaitDurable(List<CompletableFuture<Long>> durable) throws IllegalStateException {
+        try {
+            CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("The batch could not be persisted", ex.getCause());
+        }
+    }
+
+    /**
+     * @param id id of stored entity
+     * @return the same id
+     * @throws IllegalArgumentException if id is missing
+     */
+    private static UUID requireId(UUID id) throws IllegalArgumentException {
+        if (id == null) {
+            throw new IllegalArgumentException("The id is required");
+        }
+        return id;
+    }
+
+    /**
+     * Devices are stored and logged with relationships reduced to ids, as related entities are stored separately and
+     * resolved on read. All other fields are immutable values, so the result shares nothing with the original device.
+     *
+     * @param device device
+     * @return copy of the device with relationships reduced to ids
+     */
+    private static Device referenced(Device device) {
+        return device.toBuilder()
+                .brand(device.getBrand() != null ? Brand.builder().id(device.getBrand().getId()).build() : null)
+                .user(device.getUser() != null ? User.builder().id(device.getUser().getId()).build() : null)
+                .build();
+    }
+
+    /**
+     * Marks entity and its collection as modified. Should be called after the change is visible in primary index, so
+     * published version never describes older state.
+     *
+     * @param primary    primary index of the entity's type
+     * @param id         entity's id
+     * @param collection version of the entity's collection
+     */
+    private void touch(Map<UUID, ?> primary, UUID id, AtomicReference<Version> collection) {
+        Version version = nextVersion();
+        versions.compute(id, (key, current) -> primary.containsKey(key) ? version : null);
+        collection.set(version);
+    }
+
+    /**
+     * Drops version of removed entity and marks its collection as modified. Should be called after the entity is
+     * removed from primary index.
+     *
+     * @param id         entity's id
+     * @param collection version of the entity's collection
+     */
+    private void remove(UUID id, AtomicReference<Version> collection) {
+        versions.remove(id);
+        collection.set(nextVersion());
+    }
+
+    /**
+     * @return new unique version
+     */
+    private Version nextVersion() {
+        return new Version(Long.toHexString(sequence.incrementAndGet()), Instant.now());
+    }
+
+    /**
+     * Walks ordered index starting after the cursor and reads values accepted by the filter until page is full. Next
+     * page cursor is set only when the page is full.
+     *
+     * @param ids     ordered index of ids
+     * @param cursor  id of the last value on previous page or null for the first page
+     * @param primary primary index of values
+     * @param filter  values' criteria, applied to stored values
+     * @param reader  prepares stored value to be returned to the caller
+     * @param limit   maximal number of values on the page
+     * @param <T>     type of the value
+     * @return page of values
+     */
+    private <T extends Serializable> Page<T, UUID> findPage(NavigableSet<UUID> ids, UUID cursor, Map<UUID, T> primary,
+                                                            Predicate<? super T> filter, UnaryOperator<T> reader,
+                                                            int limit) {
+        List<T> elements = new ArrayList<>(Math.min(limit, 1024));
+        UUID last = null;
+        for (UUID id : cursor != null ? ids.tailSet(cursor, false) : ids) {
+            T value = primary.get(id);
+            if (value != null && filter.test(value)) {
+                elements.add(reader.apply(value));
+                last = id;
+                if (elements.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return new Page<>(elements, elements.size() == limit ? last : null);
+    }
+
+    /**
+     * Prepares stored value to be returned to the caller.
+     *
+     * @param value stored value
+     * @param <T>   type of the value
+     * @return the same snapshot in immutable snapshots mode or deep copy otherwise
+     */
+    private <T extends Serializable> T read(T value) {
+        return immutableSnapshots ? value : cloningUtility.clone(value);
+    }
+
+    /**
+     * Prepares stored device to be returned to the caller, see {@link #resolve(Device)}.
+     *
+     * @param device stored device
+     * @return device with resolved relationships, deep copy unless in immutable snapshots mode
+     */
+    private Device readDevice(Device device) {
+        return read(resolve(device));
+    }
+
+    /**
+     * Resolves device's relationships stored as id references through primary indexes. Brand is replaced with the
+     * stored brand, owner stays an id reference (none of the readers needs more) and is dropped if the user was
+     * deleted. Related entities are shared, not copied.
+     *
+     * @param device stored device
+     * @return new device with resolved relationships
+     */
+    private Device resolve(Device device) {
+        boolean owned = device.getUser() != null && users.containsKey(device.getUser().getId());
+        return device.toBuilder()
+                .brand(device.getBrand() != null ? brands.get(device.getBrand().getId()) : null)
+                .user(owned ? device.getUser() : null)
+                .build();
+    }
+
+    /**
+     * @param device stored device
+     * @param fields names of selected fields
+     * @return partial device, relationships are resolved only if brand is selected
+     */
+    private Device project(Device device, Set<String> fields) {
+        return FieldSelection.project(fields.contains("brand") ? resolve(device) : device, fields);
+    }
+
+    /**
+     * Reserves login in unique index. Should be called while holding the user's key in primary index so the
+     * reservation is atomic with the insert.
+     *
+     * @param login user's login (can be null)
+     * @param id    user's id
+     * @throws IllegalArgumentException if login is already used by other user
+     */
+    private void reserveLogin(String login, UUID id) throws IllegalArgumentException {
+        if (login == null) {
+            return;
+        }
+        UUID owner = usersByLogin.putIfAbsent(normalizeLogin(login), id);
+        if (owner != null && !owner.equals(id)) {
+            throw new IllegalArgumentException("The user login \"%s\" is not unique".formatted(login));
+        }
+    }
+
+    /**
+     * Releases login in unique index if it is still owned by the user.
+     *
+     * @param login user's login (can be null)
+     * @param id    user's id
+     */
+    private void releaseLogin(String login, UUID id) {
+        if (login != null) {
+            usersByLogin.remove(normalizeLogin(login), id);
+        }
+    }
+
+    /**
+     * @param login user's login
+     * @return login in form used as unique index key
+     */
+    private static String normalizeLogin(String login) {
+        return login != null ? login.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Adds device to secondary indexes. Should be called while holding the device's key in primary index.
+     *
+     * @param device stored device
+     */
+    private void index(Device device) {
+        if (device.getUser() != null) {
+            addToIndex(devicesByUser, device.getUser().getId(), device.getId());
+        }
+        if (device.getBrand() != null) {
+            addToIndex(devicesByBrand, device.getBrand().getId(), device.getId());
+        }
+    }
+
+    /**
+     * Removes device from secondary indexes. Should be called while holding the device's key in primary index.
+     *
+     * @param device stored device
+     */
+    private void unindex(Device device) {
+        if (device.getUser() != null) {
+            removeFromIndex(devicesByUser, device.getUser().getId(), device.getId());
+        }
+        if (device.getBrand() != null) {
+            removeFromIndex(devicesByBrand, device.getBrand().getId(), device.getId());
+        }
+    }
+
+    /**
+     * @param index secondary index
+     * @param key   indexed value
+     * @param id    device's id
+     */
+    private static void addToIndex(Map<UUID, NavigableSet<UUID>> index, UUID key, UUID id) {
+        index.compute(key, (k, ids) -> {
+            NavigableSet<UUID> result = ids != null ? ids : new ConcurrentSkipListSet<>();
+            result.add(id);
+            return result;
+        });
+    }
+
+    /**
+     * Removes id from the secondary index, empty entries are dropped.
+     *
+     * @param index secondary index
+     * @param key   indexed value
+     * @param id    device's id
+     */
+    private static void removeFromIndex(Map<UUID, NavigableSet<UUID>> index, UUID key, UUID id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
 }
@@ -0,0 +1,209 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.user.entity.User;
+import lombok.extern.java.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Durable storage of the {@link DataStore} state in a directory. State is kept as the latest snapshot and the
+ * {@link WriteAheadLog} of changes made after it. On start the snapshot is loaded and the log tail is replayed, then
+ * snapshots are taken periodically, so the log replayed on the next start stays short. Snapshot is written in
+ * {@link SnapshotCodec} binary format to a temporary file and atomically moved into place, so the previous one is
+ * valid until the new one is complete.
+ */
+@Log
+public class DataStorePersistence implements Closeable {
+
+    /**
+     * Name of the snapshot file, see {@link SnapshotCodec}.
+     */
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    /**
+     * Persisted store.
+     */
+    private final DataStore store;
+
+    /**
+     * Directory with snapshot and log segments.
+     */
+    private final Path directory;
+
+    /**
+     * Thread taking periodic snapshots.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "data-store-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Pool used for loading the snapshot.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Log attached to the store.
+     */
+    private WriteAheadLog journal;
+
+    /**
+     * Log position covered by the latest stored snapshot.
+     */
+    private long checkpoint;
+
+    /**
+     * @param store     persisted store, should be empty
+     * @param directory directory with snapshot and log segments
+     * @param pool      pool used for decoding the snapshot and building the store's indexes
+     */
+    public DataStorePersistence(DataStore store, Path directory, ForkJoinPool pool) {
+        this.store = store;
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    /**
+     * Recovers the store from the latest snapshot and the log tail, attaches new log to the store and starts periodic
+     * snapshots.
+     *
+     * @param snapshotInterval time between snapshots
+     * @throws IOException if stored state can not be read or log can not be created
+     */
+    public void open(Duration snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        Snapshot snapshot = readSnapshot();
+        if (snapshot != null) {
+            store.restore(snapshot, pool);
+            checkpoint = snapshot.sequence();
+            log.info("Loaded %d brands, %d users and %d devices in %d ms".formatted(snapshot.brands().size(),
+                    snapshot.users().size(), snapshot.devices().size(), (System.nanoTime() - start) / 1_000_000));
+        }
+        long last = WriteAheadLog.replay(directory, checkpoint, this::apply);
+        log.info("Recovered data store from snapshot at %d and %d logged changes".formatted(checkpoint, last - checkpoint));
+        journal = new WriteAheadLog(directory, last + 1);
+        store.attach(journal);
+        if (last > checkpoint) {
+            checkpoint();
+        }
+        long interval = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException | RuntimeException ex) {
+                log.log(Level.WARNING, "Unable to store data store snapshot", ex);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stores snapshot of the current state and deletes log segments covered by it. Does nothing if there were no
+     * changes since the latest snapshot.
+     *
+     * @throws IOException if snapshot can not be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (journal.durableSequence() == checkpoint) {
+            return;
+        }
+        Snapshot snapshot = store.snapshot();
+        writeSnapshot(snapshot);
+        journal.truncate(snapshot.sequence());
+        checkpoint = snapshot.sequence();
+    }
+
+    /**
+     * Stops periodic snapshots, stores the final one and closes the log.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException ex) {
+            log.log(Level.WARNING, "Unable to store final data store snapshot", ex);
+        }
+        store.detach();
+        journal.close();
+    }
+
+    /**
+     * Applies logged change to the store. Changes rejected by the store are skipped. Devices whose owner no longer
+     * exists are kept without the owner, like when the snapshot is restored.
+     *
+     * @param operation logged operation
+     * @param payload   logged entity, list of entities or id
+     */
+    @SuppressWarnings("unchecked")
+    private void apply(WriteAheadLog.Operation operation, Serializable payload) {
+        try {
+            switch (operation) {
+                case CREATE_BRAND -> store.createBrand((Brand) payload);
+                case CREATE_DEVICE -> store.createDevice(orphaned((Device) payload));
+                case UPDATE_DEVICE -> store.updateDevice(orphaned((Device) payload));
+                case DELETE_DEVICE -> store.deleteDevice((UUID) payload);
+                case CREATE_USER -> store.createUser((User) payload);
+                case UPDATE_USER -> store.updateUser((User) payload);
+                case DELETE_USER -> store.deleteUser((UUID) payload);
+                case CREATE_DEVICES -> store.createDevices(((List<Device>) payload).stream()
+                        .map(this::orphaned)
+                        .toList());
+                case CREATE_USERS -> store.createUsers((List<User>) payload);
+            }
+        } catch (IllegalArgumentException ex) {
+            log.log(Level.WARNING, "Skipping logged %s: %s".formatted(operation, ex.getMessage()));
+        }
+    }
+
+    /**
+     * @param device logged device
+     * @return the same device, without the owner if the owner does not exist
+     */
+    private Device orphaned(Device device) {
+        if (device.getUser() != null && store.findUser(device.getUser().getId()).isEmpty()) {
+            device.setUser(null);
+        }
+        return device;
+    }
+
+    /**
+     * @return the latest stored snapshot or null if there is none
+     * @throws IOException if snapshot can not be read
+     */
+    private Snapshot readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT);
+        return Files.exists(path) ? SnapshotCodec.read(path, pool) : null;
+    }
+
+    /**
+     * Writes snapshot to temporary file, forces it to the disk and replaces the previous one.
+     *
+     * @param snapshot state to be stored
+     * @throws IOException if snapshot can not be written
+     */
+    private void writeSnapshot(Snapshot snapshot) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        SnapshotCodec.write(snapshot, temporary);
+        Files.move(temporary, directory.resolve(SNAPSHOT),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
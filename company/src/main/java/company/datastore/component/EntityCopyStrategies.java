@@ -0,0 +1,82 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.serialization.component.CloningUtility;
+import company.serialization.component.CopyStrategy;
+import company.user.entity.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Hand-written {@link CopyStrategy} implementations for entities stored in {@link DataStore}. Copying field by field
+ * is much cheaper than serialization round trip. Each method creates a deep copy, so when entity is extended with a
+ * new field it has to be added here as well.
+ */
+public final class EntityCopyStrategies {
+
+    private EntityCopyStrategies() {
+    }
+
+    /**
+     * Registers copy strategies for all stored entities.
+     *
+     * @param cloningUtility utility in which strategies should be registered
+     * @return provided utility
+     */
+    public static CloningUtility register(CloningUtility cloningUtility) {
+        return cloningUtility
+                .register(Brand.class, EntityCopyStrategies::copy)
+                .register(User.class, EntityCopyStrategies::copy)
+                .register(Device.class, EntityCopyStrategies::copy);
+    }
+
+    /**
+     * @param brand brand to be copied
+     * @return deep copy of the brand
+     */
+    public static Brand copy(Brand brand) {
+        return Brand.builder()
+                .id(brand.getId())
+                .name(brand.getName())
+                .dateOfEstablishment(brand.getDateOfEstablishment() != null
+                        ? new Date(brand.getDateOfEstablishment().getTime())
+                        : null)
+                .build();
+    }
+
+    /**
+     * @param user user to be copied
+     * @return deep copy of the user
+     */
+    public static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .login(user.getLogin())
+                .name(user.getName())
+                .surname(user.getSurname())
+                .birthDate(user.getBirthDate())
+                .password(user.getPassword())
+                .email(user.getEmail())
+                .roles(user.getRoles() != null ? new ArrayList<>(user.getRoles()) : null)
+                .build();
+    }
+
+    /**
+     * @param device device to be copied
+     * @return deep copy of the device
+     */
+    public static Device copy(Device device) {
+        return Device.builder()
+                .id(device.getId())
+                .name(device.getName())
+                .price(device.getPrice())
+                .brand(device.getBrand() != null ? copy(device.getBrand()) : null)
+                .user(device.getUser() != null ? copy(device.getUser()) : null)
+                .mass(device.getMass())
+                .deviceType(device.getDeviceType())
+                .build();
+    }
+
+}
@@ -0,0 +1,20 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.user.entity.User;
+
+import java.util.List;
+
+/**
+ * Point in time state of the {@link DataStore}. Entities are shared with the store, which never modifies stored
+ * entities in place, so capturing references is enough to get consistent state.
+ *
+ * @param sequence sequence number of the last {@link WriteAheadLog} record covered by the snapshot
+ * @param brands   all brands
+ * @param users    all users
+ * @param devices  all devices
+ */
+public record Snapshot(long sequence, List<Brand> brands, List<User> users, List<Device> devices) {
+
+}
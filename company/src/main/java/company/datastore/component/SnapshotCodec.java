@@ -0,0 +1,528 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+import company.user.entity.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Compact binary format of {@link Snapshot}. Entities are stored in chunks of fixed number of records, so chunks can
+ * be mapped ({@link MappedByteBuffer}) and decoded independently in parallel, and files larger than single mapping
+ * are supported.
+ * <p>
+ * File layout: header (magic, format version, log sequence, offset of the chunk table), chunks, chunk table (number of
+ * chunks and for every chunk: entity kind, number of records, offset and length). Records use fixed-width UUIDs (two
+ * longs), enum ordinals, dates as epoch values and length-prefixed UTF-8 strings. Nullable values are preceded by
+ * presence byte or use reserved value (-1 length, -1 ordinal). Devices store only ids of their brand and user.
+ */
+public final class SnapshotCodec {
+
+    /**
+     * File signature.
+     */
+    private static final int MAGIC = 0x44534E50;
+
+    /**
+     * Version of the format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the file header.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    /**
+     * Size of single chunk table entry.
+     */
+    private static final int TABLE_ENTRY_SIZE = Byte.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    /**
+     * Maximal number of records in single chunk.
+     */
+    private static final int CHUNK_RECORDS = 65536;
+
+    /**
+     * Kinds of stored entities.
+     */
+    private static final byte BRAND = 0, USER = 1, DEVICE = 2;
+
+    /**
+     * All device types by ordinal.
+     */
+    private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+    /**
+     * Chunk of records.
+     *
+     * @param kind   kind of stored entities
+     * @param count  number of records
+     * @param offset position of the first record in the file
+     * @param length size of all records
+     */
+    private record Chunk(byte kind, int count, long offset, long length) {
+
+    }
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Writes snapshot to the file. File is forced to the disk before returning.
+     *
+     * @param snapshot state to be stored
+     * @param path     target file, overwritten if exists
+     * @throws IOException if file can not be written
+     */
+    public static void write(Snapshot snapshot, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            Encoder encoder = new Encoder();
+            List<Chunk> chunks = new ArrayList<>();
+            writeChunks(channel, encoder, chunks, BRAND, snapshot.brands(), SnapshotCodec::encode);
+            writeChunks(channel, encoder, chunks, USER, snapshot.users(), SnapshotCodec::encode);
+            writeChunks(channel, encoder, chunks, DEVICE, snapshot.devices(), SnapshotCodec::encode);
+
+            long tableOffset = channel.position();
+            ByteBuffer table = ByteBuffer.allocate(Integer.BYTES + chunks.size() * TABLE_ENTRY_SIZE);
+            table.putInt(chunks.size());
+            for (Chunk chunk : chunks) {
+                table.put(chunk.kind()).putInt(chunk.count()).putLong(chunk.offset()).putLong(chunk.length());
+            }
+            writeFully(channel, table.flip(), tableOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(snapshot.sequence())
+                    .putLong(tableOffset)
+                    .flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads snapshot from the file. Every chunk is mapped and decoded as separate task in the pool. Devices are
+     * decoded with id-only brand and user references. Header and chunk table are checked against the file size before
+     * anything is mapped, so truncated file is reported instead of mapping past its end.
+     *
+     * @param path source file
+     * @param pool pool decoding chunks
+     * @return stored state
+     * @throws IOException if file can not be read or is not a valid snapshot
+     */
+    public static Snapshot read(Path path, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated snapshot %s".formatted(path));
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format of %s".formatted(path));
+            }
+            long sequence = header.getLong();
+            long tableOffset = header.getLong();
+            if (tableOffset < HEADER_SIZE || tableOffset > size - Integer.BYTES) {
+                throw new IOException("Truncated snapshot %s".formatted(path));
+            }
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, size - tableOffset);
+            int count = table.getInt();
+            if (count < 0 || (long) count * TABLE_ENTRY_SIZE != table.remaining()) {
+                throw new IOException("Truncated snapshot %s".formatted(path));
+            }
+            Chunk[] chunks = new Chunk[count];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk(table.get(), table.getInt(), table.getLong(), table.getLong());
+                if (chunks[i].count() < 0 || chunks[i].offset() < HEADER_SIZE || chunks[i].length() < 0
+                        || chunks[i].offset() + chunks[i].length() > tableOffset) {
+                    throw new IOException("Corrupted snapshot %s".formatted(path));
+                }
+            }
+
+            List<?>[] decoded = new List<?>[chunks.length];
+            try {
+                pool.submit(() -> IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                    try {
+                        decoded[i] = decode(channel.map(FileChannel.MapMode.READ_ONLY, chunks[i].offset(),
+                                chunks[i].length()), chunks[i]);
+                    } catch (IOException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })).join();
+            } catch (RuntimeException ex) {//malformed content leads to underflow or out of range ordinals
+                throw new IOException("Corrupted snapshot %s".formatted(path), ex);
+            }
+
+            return new Snapshot(sequence, collect(chunks, decoded, BRAND), collect(chunks, decoded, USER),
+                    collect(chunks, decoded, DEVICE));
+        }
+    }
+
+    /**
+     * Encodes elements in chunks and writes them at current channel position.
+     *
+     * @param channel  target channel
+     * @param encoder  reused encoder
+     * @param chunks   table to which written chunks are added
+     * @param kind     kind of elements
+     * @param elements elements to be written
+     * @param encode   element encoding
+     * @param <T>      type of elements
+     * @throws IOException if channel can not be written
+     */
+    private static <T> void writeChunks(FileChannel channel, Encoder encoder, List<Chunk> chunks, byte kind,
+                                        List<T> elements, EntityEncoder<T> encode) throws IOException {
+        for (int start = 0; start < elements.size(); start += CHUNK_RECORDS) {
+            List<T> slice = elements.subList(start, Math.min(start + CHUNK_RECORDS, elements.size()));
+            encoder.clear();
+            slice.forEach(element -> encode.encode(encoder, element));
+            ByteBuffer buffer = encoder.buffer();
+            long offset = channel.position();
+            long length = buffer.remaining();
+            writeFully(channel, buffer, offset);
+            channel.position(offset + length);
+            chunks.add(new Chunk(kind, slice.size(), offset, length));
+        }
+    }
+
+    /**
+     * @param chunks  chunk table
+     * @param decoded decoded chunks in the table order
+     * @param kind    kind of collected entities
+     * @param <T>     type of entities
+     * @return all decoded entities of given kind
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> collect(Chunk[] chunks, List<?>[] decoded, byte kind) {
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.kind() == kind ? chunk.count() : 0;
+        }
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i].kind() == kind) {
+                result.addAll((List<T>) decoded[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param buffer mapped chunk
+     * @param chunk  chunk description
+     * @return decoded entities
+     * @throws IOException if chunk kind is unknown
+     */
+    private static List<?> decode(ByteBuffer buffer, Chunk chunk) throws IOException {
+        Function<ByteBuffer, ?> decoder = switch (chunk.kind()) {
+            case BRAND -> SnapshotCodec::decodeBrand;
+            case USER -> SnapshotCodec::decodeUser;
+            case DEVICE -> SnapshotCodec::decodeDevice;
+            default -> throw new IOException("Unknown chunk kind %d".formatted(chunk.kind()));
+        };
+        List<Object> result = new ArrayList<>(chunk.count());
+        for (int i = 0; i < chunk.count(); i++) {
+            result.add(decoder.apply(buffer));
+        }
+        return result;
+    }
+
+    /**
+     * @param encoder target encoder
+     * @param brand   encoded brand
+     */
+    private static void encode(Encoder encoder, Brand brand) {
+        encoder.putUuid(brand.getId());
+        encoder.putString(brand.getName());
+        encoder.putLong(brand.getDateOfEstablishment() != null ? brand.getDateOfEstablishment().getTime() : null);
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded brand
+     */
+    private static Brand decodeBrand(ByteBuffer buffer) {
+        UUID id = getUuid(buffer);
+        String name = getString(buffer);
+        Long date = getLong(buffer);
+        return Brand.builder()
+                .id(id)
+                .name(name)
+                .dateOfEstablishment(date != null ? new Date(date) : null)
+                .build();
+    }
+
+    /**
+     * @param encoder target encoder
+     * @param user    encoded user
+     */
+    private static void encode(Encoder encoder, User user) {
+        encoder.putUuid(user.getId());
+        encoder.putString(user.getLogin());
+        encoder.putString(user.getName());
+        encoder.putString(user.getSurname());
+        encoder.putLong(user.getBirthDate() != null ? user.getBirthDate().toEpochDay() : null);
+        encoder.putString(user.getPassword());
+        encoder.putString(user.getEmail());
+        if (user.getRoles() == null) {
+            encoder.putInt(-1);
+        } else {
+            encoder.putInt(user.getRoles().size());
+            user.getRoles().forEach(encoder::putString);
+        }
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded user
+     */
+    private static User decodeUser(ByteBuffer buffer) {
+        UUID id = getUuid(buffer);
+        String login = getString(buffer);
+        String name = getString(buffer);
+        String surname = getString(buffer);
+        Long birthDate = getLong(buffer);
+        String password = getString(buffer);
+        String email = getString(buffer);
+        int rolesCount = buffer.getInt();
+        List<String> roles = null;
+        if (rolesCount >= 0) {
+            roles = new ArrayList<>(rolesCount);
+            for (int i = 0; i < rolesCount; i++) {
+                roles.add(getString(buffer).intern());//few distinct values shared by all users
+            }
+        }
+        return User.builder()
+                .id(id)
+                .login(login)
+                .name(name)
+                .surname(surname)
+                .birthDate(birthDate != null ? LocalDate.ofEpochDay(birthDate) : null)
+                .password(password)
+                .email(email)
+                .roles(roles)
+                .build();
+    }
+
+    /**
+     * @param encoder target encoder
+     * @param device  encoded device
+     */
+    private static void encode(Encoder encoder, Device device) {
+        encoder.putUuid(device.getId());
+        encoder.putString(device.getName());
+        encoder.putInteger(device.getPrice());
+        encoder.putUuid(device.getBrand() != null ? device.getBrand().getId() : null);
+        encoder.putUuid(device.getUser() != null ? device.getUser().getId() : null);
+        encoder.putInteger(device.getMass());
+        encoder.putByte(device.getDeviceType() != null ? (byte) device.getDeviceType().ordinal() : -1);
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded device with id-only brand and user
+     */
+    private static Device decodeDevice(ByteBuffer buffer) {
+        UUID id = getUuid(buffer);
+        String name = getString(buffer);
+        Integer price = getInteger(buffer);
+        UUID brand = getUuid(buffer);
+        UUID user = getUuid(buffer);
+        Integer mass = getInteger(buffer);
+        byte deviceType = buffer.get();
+        return Device.builder()
+                .id(id)
+                .name(name)
+                .price(price)
+                .brand(brand != null ? Brand.builder().id(brand).build() : null)
+                .user(user != null ? User.builder().id(user).build() : null)
+                .mass(mass)
+                .deviceType(deviceType >= 0 ? DEVICE_TYPES[deviceType] : null)
+                .build();
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded UUID or null
+     */
+    private static UUID getUuid(ByteBuffer buffer) {
+        return buffer.get() != 0 ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded string or null
+     */
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded integer or null
+     */
+    private static Integer getInteger(ByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getInt() : null;
+    }
+
+    /**
+     * @param buffer source buffer
+     * @return decoded long or null
+     */
+    private static Long getLong(ByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getLong() : null;
+    }
+
+    /**
+     * @param channel  target channel
+     * @param buffer   written buffer
+     * @param position position in the channel
+     * @throws IOException if channel can not be written
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Encoding of single entity.
+     *
+     * @param <T> type of the entity
+     */
+    @FunctionalInterface
+    private interface EntityEncoder<T> {
+
+        /**
+         * @param encoder target encoder
+         * @param entity  encoded entity
+         */
+        void encode(Encoder encoder, T entity);
+
+    }
+
+    /**
+     * Growing buffer used for encoding single chunk.
+     */
+    private static final class Encoder {
+
+        /**
+         * Current buffer, replaced with bigger one when full.
+         */
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+        /**
+         * Clears the buffer before encoding next chunk.
+         */
+        void clear() {
+            buffer.clear();
+        }
+
+        /**
+         * @return buffer with encoded chunk ready to be written
+         */
+        ByteBuffer buffer() {
+            return buffer.flip();
+        }
+
+        /**
+         * @param bytes number of bytes which will be written
+         */
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                bigger.put(buffer.flip());
+                buffer = bigger;
+            }
+        }
+
+        /**
+         * @param value written byte
+         */
+        void putByte(byte value) {
+            ensure(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        /**
+         * @param value written int
+         */
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * @param value written nullable int
+         */
+        void putInteger(Integer value) {
+            ensure(Byte.BYTES + Integer.BYTES);
+            buffer.put((byte) (value != null ? 1 : 0));
+            if (value != null) {
+                buffer.putInt(value);
+            }
+        }
+
+        /**
+         * @param value written nullable long
+         */
+        void putLong(Long value) {
+            ensure(Byte.BYTES + Long.BYTES);
+            buffer.put((byte) (value != null ? 1 : 0));
+            if (value != null) {
+                buffer.putLong(value);
+            }
+        }
+
+        /**
+         * @param value written nullable UUID
+         */
+        void putUuid(UUID value) {
+            ensure(Byte.BYTES + 2 * Long.BYTES);
+            buffer.put((byte) (value != null ? 1 : 0));
+            if (value != null) {
+                buffer.putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits());
+            }
+        }
+
+        /**
+         * @param value written nullable string
+         */
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+    }
+
+}
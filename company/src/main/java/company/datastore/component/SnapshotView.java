@@ -0,0 +1,123 @@
+package company.datastore.component;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time view of single primary index, read without blocking writers and without copying the index. While the
+ * view is open every writer records the value of the changed key from before its first change (preimage), unless the
+ * reader has already passed the key. Reader walks ordered ids and for every key prefers the recorded preimage over the
+ * current value, then emits preimages of keys deleted before the reader reached them. Memory used by the view is
+ * proportional to the number of keys changed while it is open, not to the size of the index.
+ * <p>
+ * Recording and visiting the same key are serialized by the preimages map, so the reader never misses the preimage of
+ * a key changed before it was visited and writers never record preimages of already visited keys.
+ *
+ * @param <V> type of the value
+ */
+class SnapshotView<V> {
+
+    /**
+     * Marker of the key which was absent when the view was opened.
+     */
+    private static final Object ABSENT = new Object();
+
+    /**
+     * Primary index.
+     */
+    private final Map<UUID, V> primary;
+
+    /**
+     * Values of changed keys from the moment the view was opened, {@link #ABSENT} for keys created afterwards.
+     */
+    private final Map<UUID, Object> preimages = new ConcurrentHashMap<>();
+
+    /**
+     * The last visited key, keys are visited in ascending order. Changed only while holding the key in preimages map.
+     */
+    private volatile UUID cursor;
+
+    /**
+     * True when all ids were visited and only deleted keys are left.
+     */
+    private volatile boolean finished;
+
+    /**
+     * @param primary primary index
+     */
+    SnapshotView(Map<UUID, V> primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * @param primary primary index
+     * @return true if the view reads provided primary index
+     */
+    boolean reads(Map<UUID, ?> primary) {
+        return this.primary == primary;
+    }
+
+    /**
+     * Records value of the key before the change. Must be called while holding the key in primary index, before the
+     * change is applied.
+     *
+     * @param id      changed key
+     * @param current current value (null if absent)
+     */
+    void record(UUID id, V current) {
+        preimages.compute(id, (key, preimage) -> {
+            if (preimage != null || finished || (cursor != null && cursor.compareTo(key) >= 0)) {
+                return preimage;//first change wins, visited keys are not needed any more
+            }
+            return current != null ? current : ABSENT;
+        });
+    }
+
+    /**
+     * Creates lazy stream of values from the moment the view was opened.
+     *
+     * @param ids ordered index of ids
+     * @return stream of values, ordered by id except for values deleted before they were visited which come last
+     */
+    Stream<V> stream(NavigableSet<UUID> ids) {
+        Stream<V> visited = ids.stream()
+                .map(this::visit)
+                .filter(Objects::nonNull);
+        Stream<V> deleted = Stream.<Supplier<Stream<V>>>of(this::drain)
+                .flatMap(Supplier::get);//evaluated lazily, after all ids were visited
+        return Stream.concat(visited, deleted);
+    }
+
+    /**
+     * @param id visited key
+     * @return value of the key from the moment the view was opened or null if it was absent
+     */
+    @SuppressWarnings("unchecked")
+    private V visit(UUID id) {
+        Object[] result = new Object[1];
+        preimages.compute(id, (key, preimage) -> {
+            cursor = key;
+            result[0] = preimage != null ? preimage : primary.get(key);
+            return null;
+        });
+        return result[0] != ABSENT ? (V) result[0] : null;
+    }
+
+    /**
+     * @return values of keys deleted before they were visited
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<V> drain() {
+        finished = true;
+        return preimages.keySet().stream()
+                .map(preimages::remove)
+                .filter(preimage -> preimage != null && preimage != ABSENT)
+                .map(preimage -> (V) preimage);
+    }
+
+}
@@ -0,0 +1,490 @@
+package company.datastore.component;
+
+import lombok.extern.java.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append only log of {@link DataStore} changes. Changes are appended by many threads and written by single writer
+ * thread with group commit: all records waiting in the queue are written together and made durable with single
+ * {@link FileChannel#force(boolean)} call, so the cost of synchronization with the disk is shared by concurrent
+ * writers. Log is split into segments named after sequence number of their first record, older segments are deleted
+ * after the snapshot covering them is stored.
+ * <p>
+ * Record layout: payload length (int), CRC32C of the rest of the record (int), sequence number (long), operation
+ * ordinal (byte), serialized payload. Torn record at the end of the log (e.g. after power loss) is cut off during
+ * replay, so records appended after recovery are never preceded by garbage.
+ */
+@Log
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * Logged change of the data store. Ordinals are logged, so new operations must be added at the end.
+     */
+    public enum Operation {
+        CREATE_BRAND,
+        CREATE_DEVICE,
+        UPDATE_DEVICE,
+        DELETE_DEVICE,
+        CREATE_USER,
+        UPDATE_USER,
+        DELETE_USER,
+        CREATE_DEVICES,
+        CREATE_USERS
+    }
+
+    /**
+     * Size of the record header: length, checksum, sequence number and operation.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Byte.BYTES;
+
+    /**
+     * Maximal number of records written with single force.
+     */
+    private static final int MAX_BATCH = 4096;
+
+    /**
+     * Record waiting for the writer. Record without operation is a request to start new segment.
+     *
+     * @param operation logged operation
+     * @param payload   serialized payload
+     * @param durable   completed with sequence number when record is durable
+     */
+    private record Entry(Operation operation, byte[] payload, CompletableFuture<Long> durable) {
+
+    }
+
+    /**
+     * Directory with log segments.
+     */
+    private final Path directory;
+
+    /**
+     * Records waiting for the writer.
+     */
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Single writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * Current segment, used only by the writer thread.
+     */
+    private FileChannel segment;
+
+    /**
+     * Sequence number of the next record, used only by the writer thread.
+     */
+    private long nextSequence;
+
+    /**
+     * Sequence number of the last durable record.
+     */
+    private volatile long durableSequence;
+
+    /**
+     * Cause of write failure. When log fails it does not accept any new records, so store is not changed without
+     * logging.
+     */
+    private volatile IOException failure;
+
+    /**
+     * False after closing.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Opens new segment in the directory and starts the writer thread.
+     *
+     * @param directory    directory with log segments
+     * @param nextSequence sequence number of the first appended record, should be greater than any already logged
+     * @throws IOException if segment can not be created
+     */
+    public WriteAheadLog(Path directory, long nextSequence) throws IOException {
+        this.directory = directory;
+        this.nextSequence = nextSequence;
+        this.durableSequence = nextSequence - 1;
+        Files.createDirectories(directory);
+        segment = openSegment(nextSequence);
+        writer = new Thread(this::write, "write-ahead-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends record to the log. Should be called while holding lock of the changed entity, so records of the same
+     * entity are logged in the order of changes.
+     *
+     * @param operation logged operation
+     * @param payload   serialized payload, see {@link #serialize(Serializable)}
+     * @return future completed when record is durable
+     * @throws IllegalStateException if log is closed or failed, in such case change must not be applied
+     */
+    public CompletableFuture<Long> append(Operation operation, byte[] payload) throws IllegalStateException {
+        if (!running) {
+            throw new IllegalStateException("The write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("The write-ahead log has failed", failure);
+        }
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        queue.add(new Entry(operation, payload, durable));
+        return durable;
+    }
+
+    /**
+     * Makes all appended records durable and starts new segment. Should be called when no records are appended, so
+     * returned sequence number separates state covered by a snapshot from the following records.
+     *
+     * @return sequence number of the last record in previous segments
+     * @throws IllegalStateException if log is closed or failed
+     */
+    public long rotate() throws IllegalStateException {
+        return append(null, null).join();
+    }
+
+    /**
+     * @return sequence number of the last durable record
+     */
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Deletes segments containing only records with sequence numbers not greater than provided one. Should be called
+     * with sequence number returned by {@link #rotate()}, so the segment written at the moment is never deleted.
+     *
+     * @param sequence sequence number of the last record covered by stored snapshot
+     * @throws IOException if segments can not be listed or deleted
+     */
+    public void truncate(long sequence) throws IOException {
+        for (Path path : segments(directory)) {
+            if (segmentStart(path) <= sequence) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Waits for all appended records to be written and stops the writer.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads all records with sequence numbers greater than provided one from all segments in the directory. Reading of
+     * the segment stops at the first torn or corrupted record, as nothing after it was acknowledged, and the segment is
+     * truncated to the last valid record. Otherwise the log opened after recovery could append to the same segment
+     * after the garbage and its records would be lost on the next replay. Following segments are created after
+     * recovery, so they are still read.
+     *
+     * @param directory directory with log segments
+     * @param after     sequence number of the last record covered by snapshot
+     * @param consumer  consumer of records' operations and deserialized payloads
+     * @return sequence number of the last record found in the log (not less than provided one)
+     * @throws IOException if segments can not be read or truncated
+     */
+    public static long replay(Path directory, long after, BiConsumer<Operation, Serializable> consumer)
+            throws IOException {
+        long last = after;
+        if (!Files.isDirectory(directory)) {
+            return last;
+        }
+        Operation[] operations = Operation.values();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        for (Path path : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long valid = 0;
+                while (true) {
+                    header.clear();
+                    if (readFully(channel, header) < HEADER_SIZE) {
+                        break;
+                    }
+                    header.flip();
+                    int length = header.getInt();
+                    int checksum = header.getInt();
+                    long sequence = header.getLong();
+                    byte operation = header.get();
+                    if (length < 0 || length > channel.size() - channel.position()) {
+                        log.log(Level.WARNING, "Torn record in write-ahead log segment %s".formatted(path));
+                        break;
+                    }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(channel, payload);
+                    if (checksum != checksum(sequence, operation, payload.array())
+                            || operation < 0 || operation >= operations.length) {
+                        log.log(Level.WARNING, "Corrupted record in write-ahead log segment %s".formatted(path));
+                        break;
+                    }
+                    if (sequence > after) {
+                        consumer.accept(operations[operation], deserialize(payload.array()));
+                        last = sequence;
+                    }
+                    valid = channel.position();
+                }
+                if (channel.size() > valid) {
+                    log.log(Level.WARNING, "Truncating write-ahead log segment %s to %d bytes".formatted(path, valid));
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @param payload payload of the record
+     * @return serialized payload
+     */
+    public static byte[] serialize(Serializable payload) {
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(payload);
+            oos.flush();
+            return os.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @param payload serialized payload
+     * @return deserialized payload
+     * @throws IOException if payload can not be deserialized
+     */
+    private static Serializable deserialize(byte[] payload) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (Serializable) ois.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Writer loop. Takes all waiting records, writes them and forces them to the disk. Records are completed only after
+     * the force.
+     */
+    private void write() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        IllegalStateException closed = new IllegalStateException("The write-ahead log is closed");
+        for (Entry entry = queue.poll(); entry != null; entry = queue.poll()) {
+            entry.durable().completeExceptionally(closed);
+        }
+        try {
+            segment.force(false);
+            segment.close();
+        } catch (IOException ex) {
+            log.log(Level.WARNING, "Unable to close write-ahead log segment", ex);
+        }
+    }
+
+    /**
+     * Writes batch of records. Rotation requests split the batch, records before the request are written to the
+     * previous segment.
+     *
+     * @param batch records to be written
+     */
+    private void writeBatch(List<Entry> batch) {
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        List<Entry> written = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (failure != null) {
+                entry.durable().completeExceptionally(new IllegalStateException("The write-ahead log has failed", failure));
+            } else if (entry.operation() == null) {
+                flush(buffers, written);
+                rotateSegment(entry);
+            } else {
+                buffers.add(encode(nextSequence, entry));
+                written.add(entry);
+                nextSequence++;
+            }
+        }
+        flush(buffers, written);
+    }
+
+    /**
+     * Writes and forces encoded records, then completes them.
+     *
+     * @param buffers encoded records
+     * @param written entries of encoded records
+     */
+    private void flush(List<ByteBuffer> buffers, List<Entry> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        try {
+            ByteBuffer[] array = buffers.toArray(ByteBuffer[]::new);
+            long remaining = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+            while (remaining > 0) {
+                remaining -= segment.write(array);
+            }
+            segment.force(false);
+            durableSequence = nextSequence - 1;
+            long sequence = nextSequence - written.size();
+            for (Entry entry : written) {
+                entry.durable().complete(sequence++);
+            }
+        } catch (IOException ex) {
+            failure = ex;
+            log.log(Level.SEVERE, "Unable to write to write-ahead log", ex);
+            written.forEach(entry -> entry.durable().completeExceptionally(ex));
+        } finally {
+            buffers.clear();
+            written.clear();
+        }
+    }
+
+    /**
+     * Closes current segment and opens next one starting with the next sequence number.
+     *
+     * @param request rotation request, completed with sequence number of the last written record
+     */
+    private void rotateSegment(Entry request) {
+        try {
+            segment.force(false);
+            segment.close();
+            segment = openSegment(nextSequence);
+            request.durable().complete(nextSequence - 1);
+        } catch (IOException ex) {
+            failure = ex;
+            log.log(Level.SEVERE, "Unable to rotate write-ahead log", ex);
+            request.durable().completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * @param sequence sequence number of the record
+     * @param entry    record to be encoded
+     * @return buffer ready to be written
+     */
+    private static ByteBuffer encode(long sequence, Entry entry) {
+        byte operation = (byte) entry.operation().ordinal();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entry.payload().length);
+        buffer.putInt(entry.payload().length)
+                .putInt(checksum(sequence, operation, entry.payload()))
+                .putLong(sequence)
+                .put(operation)
+                .put(entry.payload())
+                .flip();
+        return buffer;
+    }
+
+    /**
+     * @param sequence  sequence number of the record
+     * @param operation operation ordinal
+     * @param payload   serialized payload
+     * @return checksum of the record
+     */
+    private static int checksum(long sequence, byte operation, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES + Byte.BYTES).putLong(sequence).put(operation).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @param channel source channel
+     * @param buffer  target buffer
+     * @return number of read bytes
+     * @throws IOException if channel can not be read
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    /**
+     * @param start sequence number of the first record in the segment
+     * @return new segment open for appending
+     * @throws IOException if segment can not be created
+     */
+    private FileChannel openSegment(long start) throws IOException {
+        return FileChannel.open(segmentPath(start),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @param start sequence number of the first record in the segment
+     * @return path of the segment
+     */
+    private Path segmentPath(long start) {
+        return directory.resolve("wal-%016x.log".formatted(start));
+    }
+
+    /**
+     * @param path segment path
+     * @return sequence number of the first record in the segment
+     */
+    private static long segmentStart(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseUnsignedLong(name.substring(4, name.length() - 4), 16);
+    }
+
+    /**
+     * @param directory directory with log segments
+     * @return segments ordered by sequence numbers
+     * @throws IOException if directory can not be listed
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().matches("wal-[0-9a-f]{16}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+}
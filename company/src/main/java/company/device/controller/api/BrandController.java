@@ -1,6 +1,11 @@
 package company.device.controller.api;
 
+import company.device.dto.GetBrandResponse;
 import company.device.dto.GetBrandsResponse;
+import company.repository.api.Version;
+
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Controller for managing collections Brands' representations.
@@ -12,4 +17,27 @@ public interface BrandController {
      */
     GetBrandsResponse getBrands();
 
+    /**
+     * @param cursor id of the last Brand on previous page or null for the first page
+     * @param limit  maximal number of Brands on the page
+     * @return single page of Brands representation
+     */
+    GetBrandsResponse getBrands(UUID cursor, int limit);
+
+    /**
+     * @return lazy stream of all Brands representations, to be closed by the caller
+     */
+    Stream<GetBrandsResponse.Brand> streamBrands();
+
+    /**
+     * @return lazy stream of full representations of all Brands from the moment of the call, to be closed by the
+     * caller
+     */
+    Stream<GetBrandResponse> exportBrands();
+
+    /**
+     * @return version of all Brands representation
+     */
+    Version getBrandsVersion();
+
 }
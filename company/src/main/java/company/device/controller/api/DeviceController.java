@@ -1,12 +1,21 @@
 package company.device.controller.api;
 
 import company.device.dto.GetDeviceResponse;
+import company.device.dto.GetDevicesPageResponse;
+import company.device.dto.GetDevicesRequest;
 import company.device.dto.GetDevicesResponse;
 import company.device.dto.PatchDeviceRequest;
+import company.device.dto.PostDevicesRequest;
 import company.device.dto.PutDeviceRequest;
 
+import company.repository.api.Version;
+
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Controller for managing collections devices' representations.
@@ -18,30 +27,123 @@ public interface DeviceController {
      */
     GetDevicesResponse getDevices();
 
+    /**
+     * @return lazy stream of all devices representations, to be closed by the caller
+     */
+    Stream<GetDevicesResponse.Device> streamDevices();
+
+    /**
+     * @return lazy stream of full representations of all devices from the moment of the call, to be closed by the
+     * caller
+     */
+    Stream<GetDeviceResponse> exportDevices();
+
+    /**
+     * @param fields names of selected fields
+     * @return lazy stream of all devices' full representations with only selected fields set, to be closed by the
+     * caller
+     */
+    Stream<GetDeviceResponse> streamDevices(Set<String> fields);
+
+    /**
+     * @param request paging and filtering parameters
+     * @return single page of devices representation
+     */
+    GetDevicesResponse getDevices(GetDevicesRequest request);
+
+    /**
+     * @param request paging and filtering parameters
+     * @param fields  names of selected fields
+     * @return single page of devices' full representations with only selected fields set
+     */
+    GetDevicesPageResponse getDevices(GetDevicesRequest request, Set<String> fields);
+
     /**
      * @param id Brand's id
      * @return devices representation
      */
     GetDevicesResponse getBrandDevices(UUID id);
 
+    /**
+     * @param id Brand's id
+     * @return lazy stream of devices representations, to be closed by the caller
+     */
+    Stream<GetDevicesResponse.Device> streamBrandDevices(UUID id);
+
+    /**
+     * @param id      Brand's id
+     * @param request paging and filtering parameters
+     * @return single page of devices representation
+     */
+    GetDevicesResponse getBrandDevices(UUID id, GetDevicesRequest request);
+
     /**
      * @param id user's id
      * @return devices representation
      */
     GetDevicesResponse getUserDevices(UUID id);
 
+    /**
+     * @param id user's id
+     * @return lazy stream of devices representations, to be closed by the caller
+     */
+    Stream<GetDevicesResponse.Device> streamUserDevices(UUID id);
+
     /**
      * @param uuid device's id
      * @return device representation
      */
     GetDeviceResponse getDevice(UUID uuid);
 
+    /**
+     * @param id     device's id
+     * @param fields names of selected fields
+     * @return device representation with only selected fields set
+     */
+    GetDeviceResponse getDevice(UUID id, Set<String> fields);
+
+    /**
+     * @return version of all devices representation
+     */
+    Version getDevicesVersion();
+
+    /**
+     * @param id Brand's id
+     * @return container (can be empty) with version of Brand's devices representation
+     */
+    Optional<Version> getBrandDevicesVersion(UUID id);
+
+    /**
+     * @param id user's id
+     * @return container (can be empty) with version of user's devices representation
+     */
+    Optional<Version> getUserDevicesVersion(UUID id);
+
+    /**
+     * @param id device's id
+     * @return container (can be empty) with version of device representation
+     */
+    Optional<Version> getDeviceVersion(UUID id);
+
+    /**
+     * @param id device's id
+     * @return container (can be empty) with version of device's image
+     */
+    Optional<Version> getDeviceImageVersion(UUID id);
+
     /**
      * @param id      device's id
      * @param request new device representation
      */
     void putDevice(UUID id, PutDeviceRequest request);
 
+    /**
+     * Creates all devices at once, either all are created or none.
+     *
+     * @param request new devices representation
+     */
+    void postDevices(PostDevicesRequest request);
+
     /**
      * @param id      device's id
      * @param request device update representation
@@ -55,9 +157,9 @@ public interface DeviceController {
 
     /**
      * @param id device's id
-     * @return device's image
+     * @return channel of device's image, to be closed by the caller
      */
-    byte[] getDeviceImage(UUID id);
+    FileChannel getDeviceImage(UUID id);
 
     /**
      * @param id       device's id
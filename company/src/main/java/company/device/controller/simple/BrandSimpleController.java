@@ -1,9 +1,16 @@
 package company.device.controller.simple;
 
 import company.device.controller.api.BrandController;
+import company.device.dto.GetBrandResponse;
 import company.device.dto.GetBrandsResponse;
 import company.device.service.BrandService;
 import company.component.DtoFunctionFactory;
+import company.device.entity.Brand;
+import company.repository.api.Page;
+import company.repository.api.Version;
+
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Simple framework agnostic implementation of controller.
@@ -35,4 +42,29 @@ public class BrandSimpleController implements BrandController {
         return factory.BrandsToResponse().apply(service.findAll());
     }
 
+    @Override
+    public GetBrandsResponse getBrands(UUID cursor, int limit) {
+        Page<Brand, UUID> page = service.findPage(cursor, limit);
+        GetBrandsResponse response = factory.BrandsToResponse().apply(page.elements());
+        response.setNext(page.next());
+        return response;
+    }
+
+    @Override
+    public Stream<GetBrandResponse> exportBrands() {
+        return service.streamSnapshot()
+                .map(factory.BrandToResponse());
+    }
+
+    @Override
+    public Stream<GetBrandsResponse.Brand> streamBrands() {
+        return service.streamAll()
+                .map(factory.BrandToBrandsEntry());
+    }
+
+    @Override
+    public Version getBrandsVersion() {
+        return service.findAllVersion();
+    }
+
 }
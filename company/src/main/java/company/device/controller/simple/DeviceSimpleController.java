@@ -2,17 +2,27 @@ package company.device.controller.simple;
 
 import company.device.controller.api.DeviceController;
 import company.device.dto.GetDeviceResponse;
+import company.device.dto.GetDevicesPageResponse;
+import company.device.dto.GetDevicesRequest;
 import company.device.dto.GetDevicesResponse;
 import company.device.dto.PatchDeviceRequest;
+import company.device.dto.PostDevicesRequest;
 import company.device.dto.PutDeviceRequest;
 import company.device.entity.Device;
 import company.device.service.DeviceService;
 import company.component.DtoFunctionFactory;
 import company.controller.servlet.exception.BadRequestException;
 import company.controller.servlet.exception.NotFoundException;
+import company.repository.api.FieldSelection;
+import company.repository.api.Page;
+import company.repository.api.Version;
 
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Simple framework agnostic implementation of controller.
@@ -43,6 +53,28 @@ public class DeviceSimpleController implements DeviceController {
         return factory.devicesToResponse().apply(service.findAll());
     }
 
+    @Override
+    public Stream<GetDevicesResponse.Device> streamDevices() {
+        return service.streamAll()
+                .map(factory.deviceToDevicesEntry());
+    }
+
+    @Override
+    public Stream<GetDeviceResponse> exportDevices() {
+        return service.streamSnapshot()
+                .map(factory.deviceToResponse());
+    }
+
+    @Override
+    public Stream<GetDeviceResponse> streamDevices(Set<String> fields) {
+        try {
+            return service.streamAll(fields)
+                    .map(factory.deviceToResponse());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        }
+    }
+
     @Override
     public GetDevicesResponse getBrandDevices(UUID id) {
         return service.findAllByBrand(id)
@@ -50,6 +82,46 @@ public class DeviceSimpleController implements DeviceController {
                 .orElseThrow(NotFoundException::new);
     }
 
+    @Override
+    public Stream<GetDevicesResponse.Device> streamBrandDevices(UUID id) {
+        return service.findAllByBrand(id)
+                .orElseThrow(NotFoundException::new)
+                .stream()
+                .map(factory.deviceToDevicesEntry());
+    }
+
+    @Override
+    public GetDevicesResponse getDevices(GetDevicesRequest request) {
+        Page<Device, UUID> page = service.findPage(
+                factory.requestToDeviceFilter().apply(request), request.getCursor(), request.getLimit());
+        return pageToResponse(page);
+    }
+
+    @Override
+    public GetDevicesPageResponse getDevices(GetDevicesRequest request, Set<String> fields) {
+        try {
+            FieldSelection.requireFields(fields, FieldSelection.DEVICE_FIELDS);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        }
+        Page<Device, UUID> page = service.findPage(
+                factory.requestToDeviceFilter().apply(request), request.getCursor(), request.getLimit());
+        return GetDevicesPageResponse.builder()
+                .devices(page.elements().stream()
+                        .map(device -> FieldSelection.project(device, fields))
+                        .map(factory.deviceToResponse())
+                        .toList())
+                .next(page.next())
+                .build();
+    }
+
+    @Override
+    public GetDevicesResponse getBrandDevices(UUID id, GetDevicesRequest request) {
+        return service.findPageByBrand(id, factory.requestToDeviceFilter().apply(request), request.getCursor(), request.getLimit())
+                .map(this::pageToResponse)
+                .orElseThrow(NotFoundException::new);
+    }
+
     @Override
     public GetDevicesResponse getUserDevices(UUID id) {
         return service.findAllByUser(id)
@@ -57,6 +129,14 @@ public class DeviceSimpleController implements DeviceController {
                 .orElseThrow(NotFoundException::new);
     }
 
+    @Override
+    public Stream<GetDevicesResponse.Device> streamUserDevices(UUID id) {
+        return service.findAllByUser(id)
+                .orElseThrow(NotFoundException::new)
+                .stream()
+                .map(factory.deviceToDevicesEntry());
+    }
+
     @Override
     public GetDeviceResponse getDevice(UUID uuid) {
         return service.find(uuid)
@@ -64,6 +144,42 @@ public class DeviceSimpleController implements DeviceController {
                 .orElseThrow(NotFoundException::new);
     }
 
+    @Override
+    public GetDeviceResponse getDevice(UUID id, Set<String> fields) {
+        try {
+            return service.find(id, fields)
+                    .map(factory.deviceToResponse())
+                    .orElseThrow(NotFoundException::new);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        }
+    }
+
+    @Override
+    public Version getDevicesVersion() {
+        return service.findAllVersion();
+    }
+
+    @Override
+    public Optional<Version> getBrandDevicesVersion(UUID id) {
+        return service.findAllByBrandVersion(id);
+    }
+
+    @Override
+    public Optional<Version> getUserDevicesVersion(UUID id) {
+        return service.findAllByUserVersion(id);
+    }
+
+    @Override
+    public Optional<Version> getDeviceVersion(UUID id) {
+        return service.findVersion(id);
+    }
+
+    @Override
+    public Optional<Version> getDeviceImageVersion(UUID id) {
+        return service.findImageVersion(id);
+    }
+
     @Override
     public void putDevice(UUID id, PutDeviceRequest request) {
         try {
@@ -73,6 +189,15 @@ public class DeviceSimpleController implements DeviceController {
         }
     }
 
+    @Override
+    public void postDevices(PostDevicesRequest request) {
+        try {
+            service.createAll(factory.requestToDevices().apply(request));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        }
+    }
+
     public void patchDevice(UUID id, PatchDeviceRequest request) {
         service.find(id).ifPresentOrElse(
                 entity -> service.update(factory.updateDevice().apply(entity, request)),
@@ -84,18 +209,16 @@ public class DeviceSimpleController implements DeviceController {
 
     @Override
     public void deleteDevice(UUID id) {
-        service.find(id).ifPresentOrElse(
-                entity -> service.delete(id),
-                () -> {
-                    throw new NotFoundException();
-                }
-        );
+        try {
+            service.delete(id);
+        } catch (IllegalArgumentException ex) {
+            throw new NotFoundException(ex);
+        }
     }
 
     @Override
-    public byte[] getDeviceImage(UUID id) {
-        return service.find(id)
-                .map(Device::getImage)
+    public FileChannel getDeviceImage(UUID id) {
+        return service.openImage(id)
                 .orElseThrow(NotFoundException::new);
     }
 
@@ -104,4 +227,14 @@ public class DeviceSimpleController implements DeviceController {
         service.updatePortrait(id, image);
     }
 
+    /**
+     * @param page page of devices
+     * @return devices representation with cursor of the next page
+     */
+    private GetDevicesResponse pageToResponse(Page<Device, UUID> page) {
+        GetDevicesResponse response = factory.devicesToResponse().apply(page.elements());
+        response.setNext(page.next());
+        return response;
+    }
+
 }
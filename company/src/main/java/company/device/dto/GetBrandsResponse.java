@@ -53,4 +53,9 @@ public class GetBrandsResponse {
      */
     private List<Brand> brands;
 
+    /**
+     * Cursor of the next page. Present only in paged responses when there can be more Brands.
+     */
+    private UUID next;
+
 }
@@ -0,0 +1,40 @@
+package company.device.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * GET devices response with selected fields. Contains single page of devices' full representations, each with only
+ * selected fields set.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+@EqualsAndHashCode
+public class GetDevicesPageResponse {
+
+    /**
+     * Devices on the page.
+     */
+    @Singular
+    private List<GetDeviceResponse> devices;
+
+    /**
+     * Cursor of the next page or null if there are no more devices.
+     */
+    private UUID next;
+
+}
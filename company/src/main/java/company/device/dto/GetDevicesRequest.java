@@ -0,0 +1,53 @@
+package company.device.dto;
+
+import company.device.entity.DeviceType;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * GET devices request. Contains paging and filtering parameters (taken from query string) used for listing devices.
+ * Null filters are not applied.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+@EqualsAndHashCode
+public class GetDevicesRequest {
+
+    /**
+     * Id of the last device on previous page or null for the first page.
+     */
+    private UUID cursor;
+
+    /**
+     * Maximal number of devices on the page.
+     */
+    private int limit;
+
+    /**
+     * Device's type.
+     */
+    private DeviceType deviceType;
+
+    /**
+     * Minimal device's price (inclusive).
+     */
+    private Integer minPrice;
+
+    /**
+     * Maximal device's price (inclusive).
+     */
+    private Integer maxPrice;
+
+}
@@ -56,4 +56,9 @@ public class GetDevicesResponse {
     @Singular
     private List<Device> devices;
 
+    /**
+     * Cursor of the next page. Present only in paged responses when there can be more devices.
+     */
+    private UUID next;
+
 }
@@ -0,0 +1,80 @@
+package company.device.dto;
+
+import company.device.entity.DeviceType;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * POST devices batch request. Contains devices created all at once. Unlike {@link PutDeviceRequest} every device
+ * carries its own id.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+@EqualsAndHashCode
+public class PostDevicesRequest {
+
+    /**
+     * Represents single new device in the batch.
+     */
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @ToString
+    @EqualsAndHashCode
+    public static class Device {
+
+        /**
+         * Unique id of the new device.
+         */
+        private UUID id;
+
+        /**
+         * Name of the device.
+         */
+        private String name;
+
+        /**
+         * Device's price.
+         */
+        private Integer price;
+
+        /**
+         * Device's mass.
+         */
+        private Integer mass;
+
+        /**
+         * Identifier of the device's Brand.
+         */
+        private UUID brand;
+
+        /**
+         * Device's type.
+         */
+        private DeviceType deviceType;
+
+    }
+
+    /**
+     * New devices.
+     */
+    @Singular
+    private List<Device> devices;
+
+}
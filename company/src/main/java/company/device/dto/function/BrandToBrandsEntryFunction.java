@@ -0,0 +1,21 @@
+package company.device.dto.function;
+
+import company.device.dto.GetBrandsResponse;
+import company.device.entity.Brand;
+
+import java.util.function.Function;
+
+/**
+ * Converts {@link Brand} to single entry of {@link GetBrandsResponse}.
+ */
+public class BrandToBrandsEntryFunction implements Function<Brand, GetBrandsResponse.Brand> {
+
+    @Override
+    public GetBrandsResponse.Brand apply(Brand entity) {
+        return GetBrandsResponse.Brand.builder()
+                .id(entity.getId())
+                .name(entity.getName())
+                .build();
+    }
+
+}
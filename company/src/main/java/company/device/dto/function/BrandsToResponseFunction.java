@@ -15,10 +15,7 @@ public class BrandsToResponseFunction implements Function<List<Brand>, GetBrands
     public GetBrandsResponse apply(List<Brand> entities) {
         return GetBrandsResponse.builder()
                 .brands(entities.stream()
-                        .map(brand -> GetBrandsResponse.Brand.builder()
-                                .id(brand.getId())
-                                .name(brand.getName())
-                                .build())
+                        .map(new BrandToBrandsEntryFunction())
                         .toList())
                 .build();
     }
@@ -0,0 +1,21 @@
+package company.device.dto.function;
+
+import company.device.dto.GetDevicesResponse;
+import company.device.entity.Device;
+
+import java.util.function.Function;
+
+/**
+ * Converts {@link Device} to single entry of {@link GetDevicesResponse}.
+ */
+public class DeviceToDevicesEntryFunction implements Function<Device, GetDevicesResponse.Device> {
+
+    @Override
+    public GetDevicesResponse.Device apply(Device entity) {
+        return GetDevicesResponse.Device.builder()
+                .id(entity.getId())
+                .name(entity.getName())
+                .build();
+    }
+
+}
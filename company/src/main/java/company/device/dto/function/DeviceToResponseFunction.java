@@ -18,10 +18,12 @@ public class DeviceToResponseFunction implements Function<Device, GetDeviceRespo
                 .price(entity.getPrice())
                 .deviceType(entity.getDeviceType())
                 .mass(entity.getMass())
-                .brand(GetDeviceResponse.Brand.builder()
+                .brand(entity.getBrand() != null
+                        ? GetDeviceResponse.Brand.builder()
                         .id(entity.getBrand().getId())
                         .name(entity.getBrand().getName())
-                        .build())
+                        .build()
+                        : null)
                 .build();
     }
 
@@ -15,10 +15,7 @@ public class DevicesToResponseFunction implements Function<List<Device>, GetDevi
     public GetDevicesResponse apply(List<Device> entities) {
         return GetDevicesResponse.builder()
                 .devices(entities.stream()
-                        .map(Device -> GetDevicesResponse.Device.builder()
-                                .id(Device.getId())
-                                .name(Device.getName())
-                                .build())
+                        .map(new DeviceToDevicesEntryFunction())
                         .toList())
                 .build();
     }
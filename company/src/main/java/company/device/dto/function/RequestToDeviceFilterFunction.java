@@ -0,0 +1,18 @@
+package company.device.dto.function;
+
+import company.device.dto.GetDevicesRequest;
+import company.device.repository.api.DeviceFilter;
+
+import java.util.function.Function;
+
+/**
+ * Converts {@link GetDevicesRequest} to {@link DeviceFilter}.
+ */
+public class RequestToDeviceFilterFunction implements Function<GetDevicesRequest, DeviceFilter> {
+
+    @Override
+    public DeviceFilter apply(GetDevicesRequest request) {
+        return new DeviceFilter(null, request.getDeviceType(), request.getMinPrice(), request.getMaxPrice());
+    }
+
+}
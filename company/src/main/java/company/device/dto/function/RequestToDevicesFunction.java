@@ -0,0 +1,38 @@
+package company.device.dto.function;
+
+import company.device.dto.PostDevicesRequest;
+import company.device.entity.Brand;
+import company.device.entity.Device;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts {@link PostDevicesRequest} to list of {@link Device}. Caution, some fields are not set as they should be
+ * updated by business logic.
+ */
+public class RequestToDevicesFunction implements Function<PostDevicesRequest, List<Device>> {
+
+    /**
+     * @throws IllegalArgumentException if any device has no id
+     */
+    @Override
+    public List<Device> apply(PostDevicesRequest request) throws IllegalArgumentException {
+        return request.getDevices().stream()
+                .<Device>map(device -> {
+                    if (device == null || device.getId() == null) {
+                        throw new IllegalArgumentException("Every device in the batch requires id");
+                    }
+                    return Device.builder()
+                            .id(device.getId())
+                            .name(device.getName())
+                            .price(device.getPrice())
+                            .deviceType(device.getDeviceType())
+                            .mass(device.getMass())
+                            .brand(device.getBrand() != null ? Brand.builder().id(device.getBrand()).build() : null)
+                            .build();
+                })
+                .toList();
+    }
+
+}
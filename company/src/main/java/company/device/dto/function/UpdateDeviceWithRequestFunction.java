@@ -20,7 +20,6 @@ public class UpdateDeviceWithRequestFunction implements BiFunction<Device, Patch
                 .deviceType(request.getDeviceType())
                 .mass(entity.getMass())
                 .brand(entity.getBrand())
-                .image(entity.getImage())
                 .build();
     }
 
@@ -2,7 +2,6 @@ package company.device.entity;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -14,11 +13,12 @@ import java.io.Serializable;
 import java.util.UUID;
 
 /**
- * Entity for device owned by the user. Represents devices basic stats
+ * Entity for device owned by the user. Represents devices basic stats. Device's image is not part of the entity, it is
+ * kept in separate file storage under device's id.
  */
 @Getter
 @Setter
-@SuperBuilder
+@SuperBuilder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @ToString(callSuper = true)
@@ -60,12 +60,4 @@ public class Device implements Serializable {
      */
     private DeviceType deviceType;
 
-
-    /**
-     * Devices Example image. Images in database are stored as blobs (binary large objects).
-     */
-    @ToString.Exclude
-    @EqualsAndHashCode.Exclude
-    private byte[] image;
-
 }
@@ -0,0 +1,47 @@
+package company.device.repository.api;
+
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Criteria used for selecting devices. Null criteria are not applied.
+ *
+ * @param brand      id of device's brand
+ * @param deviceType device's type
+ * @param minPrice   minimal device's price (inclusive)
+ * @param maxPrice   maximal device's price (inclusive)
+ */
+public record DeviceFilter(UUID brand, DeviceType deviceType, Integer minPrice, Integer maxPrice)
+        implements Predicate<Device> {
+
+    /**
+     * Filter accepting all devices.
+     */
+    public static final DeviceFilter ALL = new DeviceFilter(null, null, null, null);
+
+    /**
+     * @param brand id of device's brand
+     * @return copy of this filter limited to single brand
+     */
+    public DeviceFilter withBrand(UUID brand) {
+        return new DeviceFilter(brand, deviceType, minPrice, maxPrice);
+    }
+
+    @Override
+    public boolean test(Device device) {
+        if (brand != null && (device.getBrand() == null || !brand.equals(device.getBrand().getId()))) {
+            return false;
+        }
+        if (deviceType != null && deviceType != device.getDeviceType()) {
+            return false;
+        }
+        if (minPrice != null && (device.getPrice() == null || device.getPrice() < minPrice)) {
+            return false;
+        }
+        return maxPrice == null || (device.getPrice() != null && device.getPrice() <= maxPrice);
+    }
+
+}
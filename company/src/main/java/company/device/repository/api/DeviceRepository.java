@@ -2,12 +2,15 @@ package company.device.repository.api;
 
 import company.device.entity.Device;
 import company.device.entity.Brand;
+import company.repository.api.Page;
 import company.repository.api.Repository;
 import company.user.entity.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for device entity. Repositories should be used in business layer (e.g.: in services).
@@ -23,6 +26,27 @@ public interface DeviceRepository extends Repository<Device, UUID> {
      */
     Optional<Device> findByIdAndUser(UUID id, User user);
 
+    /**
+     * Seeks for single device reading only selected fields. Unselected fields are left null, unselected relationships
+     * are not loaded at all.
+     *
+     * @param id     device's id
+     * @param fields names of selected fields
+     * @return container (can be empty) with partial device
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    Optional<Device> find(UUID id, Set<String> fields) throws IllegalArgumentException;
+
+    /**
+     * Streams all devices reading only selected fields. Unselected fields are left null, unselected relationships are
+     * not loaded at all.
+     *
+     * @param fields names of selected fields
+     * @return stream (can be empty) of all partial devices
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    Stream<Device> stream(Set<String> fields) throws IllegalArgumentException;
+
     /**
      * Seeks for all user's devices.
      *
@@ -31,6 +55,16 @@ public interface DeviceRepository extends Repository<Device, UUID> {
      */
     List<Device> findAllByUser(User user);
 
+    /**
+     * Seeks for single page of devices matching the filter, ordered by id.
+     *
+     * @param filter devices' criteria
+     * @param cursor id of the last device on previous page or null for the first page
+     * @param limit  maximal number of devices on the page
+     * @return page (can be empty) of devices
+     */
+    Page<Device, UUID> findPage(DeviceFilter filter, UUID cursor, int limit);
+
     /**
      * Seeks for all Brand's devices.
      *
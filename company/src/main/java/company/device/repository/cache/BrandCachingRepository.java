@@ -0,0 +1,22 @@
+package company.device.repository.cache;
+
+import company.device.entity.Brand;
+import company.device.repository.api.BrandRepository;
+import company.repository.cache.CachingRepository;
+
+import java.util.UUID;
+
+/**
+ * Caching decorator of brand repository.
+ */
+public class BrandCachingRepository extends CachingRepository<Brand, UUID> implements BrandRepository {
+
+    /**
+     * @param delegate    underlying repository
+     * @param maximumSize maximal number of cached brands
+     */
+    public BrandCachingRepository(BrandRepository delegate, int maximumSize) {
+        super(delegate, Brand::getId, maximumSize);
+    }
+
+}
@@ -0,0 +1,69 @@
+package company.device.repository.cache;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.repository.api.DeviceFilter;
+import company.device.repository.api.DeviceRepository;
+import company.repository.api.FieldSelection;
+import company.repository.api.Page;
+import company.repository.cache.CachingRepository;
+import company.user.entity.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Caching decorator of device repository. Single device reads (also with projection) are served from the cache.
+ */
+public class DeviceCachingRepository extends CachingRepository<Device, UUID> implements DeviceRepository {
+
+    /**
+     * Underlying repository.
+     */
+    private final DeviceRepository devices;
+
+    /**
+     * @param delegate    underlying repository
+     * @param maximumSize maximal number of cached devices
+     */
+    public DeviceCachingRepository(DeviceRepository delegate, int maximumSize) {
+        super(delegate, Device::getId, maximumSize);
+        this.devices = delegate;
+    }
+
+    @Override
+    public Optional<Device> findByIdAndUser(UUID id, User user) {
+        return find(id)
+                .filter(device -> device.getUser() != null && device.getUser().getId().equals(user.getId()));
+    }
+
+    @Override
+    public Optional<Device> find(UUID id, Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.DEVICE_FIELDS);
+        return find(id).map(device -> FieldSelection.project(device, fields));
+    }
+
+    @Override
+    public Stream<Device> stream(Set<String> fields) throws IllegalArgumentException {
+        return devices.stream(fields);
+    }
+
+    @Override
+    public List<Device> findAllByUser(User user) {
+        return devices.findAllByUser(user);
+    }
+
+    @Override
+    public Page<Device, UUID> findPage(DeviceFilter filter, UUID cursor, int limit) {
+        return devices.findPage(filter, cursor, limit);
+    }
+
+    @Override
+    public List<Device> findAllByBrand(Brand Brand) {
+        return devices.findAllByBrand(Brand);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Caching decorators of devices and brands repositories.
+ */
+package company.device.repository.cache;
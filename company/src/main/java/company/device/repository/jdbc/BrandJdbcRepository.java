@@ -0,0 +1,155 @@
+package company.device.repository.jdbc;
+
+import company.device.entity.Brand;
+import company.device.repository.api.BrandRepository;
+import company.repository.api.Page;
+import company.repository.api.Version;
+import company.repository.jdbc.JdbcSupport;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Repository for Brand entity backed by relational database. Repositories should be used in business layer (e.g.: in
+ * services).
+ */
+public class BrandJdbcRepository implements BrandRepository {
+
+    /**
+     * Name of the versioned collection.
+     */
+    public static final String COLLECTION = "brands";
+
+    /**
+     * Selected columns.
+     */
+    private static final String COLUMNS = "id, name, date_of_establishment";
+
+    /**
+     * Common JDBC operations.
+     */
+    private final JdbcSupport jdbc;
+
+    /**
+     * @param jdbc common JDBC operations
+     */
+    public BrandJdbcRepository(JdbcSupport jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<Brand> find(UUID id) {
+        return jdbc.queryOne("SELECT " + COLUMNS + " FROM brands WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                BrandJdbcRepository::map);
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return jdbc.queryOne("SELECT version, modified FROM brands WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                JdbcSupport::version);
+    }
+
+    @Override
+    public Version version() {
+        return jdbc.version(COLLECTION);
+    }
+
+    @Override
+    public List<Brand> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM brands", statement -> {
+        }, BrandJdbcRepository::map);
+    }
+
+    @Override
+    public Page<Brand, UUID> findPage(UUID cursor, int limit) {
+        List<Brand> brands = jdbc.query("SELECT " + COLUMNS + " FROM brands WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY",
+                statement -> {
+                    statement.setString(1, cursor != null ? cursor.toString() : "");
+                    statement.setInt(2, limit);
+                },
+                BrandJdbcRepository::map);
+        return new Page<>(brands, brands.size() == limit ? brands.get(brands.size() - 1).getId() : null);
+    }
+
+    @Override
+    public Stream<Brand> stream() {
+        return jdbc.stream("SELECT " + COLUMNS + " FROM brands", statement -> {
+        }, BrandJdbcRepository::map);
+    }
+
+    @Override
+    public void create(Brand entity) {
+        createAll(List.of(entity));
+    }
+
+    @Override
+    public void createAll(Collection<Brand> entities) {
+        jdbc.batch("INSERT INTO brands (" + COLUMNS + ", version, modified) "
+                + "VALUES (?, ?, ?, NEXT VALUE FOR version_sequence, CURRENT_TIMESTAMP)", entities, BrandJdbcRepository::bind, COLLECTION);
+    }
+
+    @Override
+    public void delete(Brand entity) {
+        if (jdbc.update("DELETE FROM brands WHERE id = ?", statement -> JdbcSupport.setUuid(statement, 1, entity.getId()),
+                COLLECTION) == 0) {
+            throw new IllegalArgumentException("The Brand with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    @Override
+    public void update(Brand entity) {
+        if (jdbc.update("UPDATE brands SET name = ?, date_of_establishment = ?, "
+                + "version = NEXT VALUE FOR version_sequence, modified = CURRENT_TIMESTAMP WHERE id = ?", statement -> {
+            statement.setString(1, entity.getName());
+            statement.setObject(2, toDateTime(entity.getDateOfEstablishment()));
+            JdbcSupport.setUuid(statement, 3, entity.getId());
+        }, COLLECTION) == 0) {
+            throw new IllegalArgumentException("The Brand with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    /**
+     * @param statement insert statement
+     * @param entity    inserted brand
+     * @throws SQLException if parameter can not be set
+     */
+    private static void bind(PreparedStatement statement, Brand entity) throws SQLException {
+        JdbcSupport.setUuid(statement, 1, entity.getId());
+        statement.setString(2, entity.getName());
+        statement.setObject(3, toDateTime(entity.getDateOfEstablishment()));
+    }
+
+    /**
+     * @param resultSet result set positioned at the row with {@link #COLUMNS}
+     * @return mapped brand
+     * @throws SQLException if column can not be read
+     */
+    private static Brand map(ResultSet resultSet) throws SQLException {
+        OffsetDateTime date = resultSet.getObject("date_of_establishment", OffsetDateTime.class);
+        return Brand.builder()
+                .id(JdbcSupport.getUuid(resultSet, "id"))
+                .name(resultSet.getString("name"))
+                .dateOfEstablishment(date != null ? Date.from(date.toInstant()) : null)
+                .build();
+    }
+
+    /**
+     * @param date nullable date
+     * @return date in UTC
+     */
+    private static OffsetDateTime toDateTime(Date date) {
+        return date != null ? date.toInstant().atOffset(ZoneOffset.UTC) : null;
+    }
+
+}
@@ -0,0 +1,300 @@
+package company.device.repository.jdbc;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+import company.device.repository.api.DeviceFilter;
+import company.device.repository.api.DeviceRepository;
+import company.repository.api.FieldSelection;
+import company.repository.api.Page;
+import company.repository.api.Version;
+import company.repository.jdbc.JdbcSupport;
+import company.user.entity.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repository for device entity backed by relational database. Devices are read together with their brand (joined),
+ * device's owner is represented only by id. Repositories should be used in business layer (e.g.: in services).
+ */
+public class DeviceJdbcRepository implements DeviceRepository {
+
+    /**
+     * Name of the versioned collection.
+     */
+    public static final String COLLECTION = "devices";
+
+    /**
+     * Selected columns and joined tables.
+     */
+    private static final String SELECT = "SELECT d.id, d.name, d.price, d.mass, d.device_type, d.user_id, "
+            + "b.id AS brand_id, b.name AS brand_name, b.date_of_establishment AS brand_date "
+            + "FROM devices d LEFT JOIN brands b ON b.id = d.brand_id";
+
+    /**
+     * Columns of projectable fields.
+     */
+    private static final Map<String, String> FIELD_COLUMNS = Map.of(
+            "id", "d.id",
+            "name", "d.name",
+            "price", "d.price",
+            "mass", "d.mass",
+            "deviceType", "d.device_type",
+            "brand", "b.id AS brand_id, b.name AS brand_name, b.date_of_establishment AS brand_date"
+    );
+
+    /**
+     * Common JDBC operations.
+     */
+    private final JdbcSupport jdbc;
+
+    /**
+     * @param jdbc common JDBC operations
+     */
+    public DeviceJdbcRepository(JdbcSupport jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<Device> find(UUID id) {
+        return jdbc.queryOne(SELECT + " WHERE d.id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public Optional<Device> find(UUID id, Set<String> fields) {
+        return jdbc.queryOne(projection(fields) + " WHERE d.id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                resultSet -> map(resultSet, fields));
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return jdbc.queryOne("SELECT version, modified FROM devices WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                JdbcSupport::version);
+    }
+
+    @Override
+    public Version version() {
+        return jdbc.version(COLLECTION);
+    }
+
+    @Override
+    public List<Device> findAll() {
+        return jdbc.query(SELECT, statement -> {
+        }, DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public Page<Device, UUID> findPage(UUID cursor, int limit) {
+        return findPage(DeviceFilter.ALL, cursor, limit);
+    }
+
+    @Override
+    public Page<Device, UUID> findPage(DeviceFilter filter, UUID cursor, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE d.id > ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(cursor != null ? cursor.toString() : "");
+        if (filter.brand() != null) {
+            sql.append(" AND d.brand_id = ?");
+            parameters.add(filter.brand().toString());
+        }
+        if (filter.deviceType() != null) {
+            sql.append(" AND d.device_type = ?");
+            parameters.add(filter.deviceType().name());
+        }
+        if (filter.minPrice() != null) {
+            sql.append(" AND d.price >= ?");
+            parameters.add(filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            sql.append(" AND d.price <= ?");
+            parameters.add(filter.maxPrice());
+        }
+        sql.append(" ORDER BY d.id FETCH FIRST ? ROWS ONLY");
+        parameters.add(limit);
+        List<Device> devices = jdbc.query(sql.toString(), statement -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+        }, DeviceJdbcRepository::map);
+        return new Page<>(devices, devices.size() == limit ? devices.get(devices.size() - 1).getId() : null);
+    }
+
+    @Override
+    public Stream<Device> stream() {
+        return jdbc.stream(SELECT, statement -> {
+        }, DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public Stream<Device> stream(Set<String> fields) {
+        return jdbc.stream(projection(fields), statement -> {
+        }, resultSet -> map(resultSet, fields));
+    }
+
+    @Override
+    public Optional<Device> findByIdAndUser(UUID id, User user) {
+        return jdbc.queryOne(SELECT + " WHERE d.id = ? AND d.user_id = ?", statement -> {
+            JdbcSupport.setUuid(statement, 1, id);
+            JdbcSupport.setUuid(statement, 2, user.getId());
+        }, DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public List<Device> findAllByUser(User user) {
+        return jdbc.query(SELECT + " WHERE d.user_id = ? ORDER BY d.id",
+                statement -> JdbcSupport.setUuid(statement, 1, user.getId()),
+                DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public List<Device> findAllByBrand(Brand Brand) {
+        return jdbc.query(SELECT + " WHERE d.brand_id = ? ORDER BY d.id",
+                statement -> JdbcSupport.setUuid(statement, 1, Brand.getId()),
+                DeviceJdbcRepository::map);
+    }
+
+    @Override
+    public void create(Device entity) {
+        createAll(List.of(entity));
+    }
+
+    @Override
+    public void createAll(Collection<Device> entities) {
+        jdbc.batch("INSERT INTO devices (id, name, price, mass, device_type, brand_id, user_id, version, modified) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, NEXT VALUE FOR version_sequence, CURRENT_TIMESTAMP)",
+                entities, DeviceJdbcRepository::bind, COLLECTION);
+    }
+
+    @Override
+    public void delete(Device entity) {
+        if (jdbc.update("DELETE FROM devices WHERE id = ?", statement -> JdbcSupport.setUuid(statement, 1, entity.getId()),
+                COLLECTION) == 0) {
+            throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    @Override
+    public void update(Device entity) {
+        if (jdbc.update("UPDATE devices SET name = ?, price = ?, mass = ?, device_type = ?, brand_id = ?, user_id = ?, "
+                + "version = NEXT VALUE FOR version_sequence, modified = CURRENT_TIMESTAMP WHERE id = ?", statement -> {
+            bindValues(statement, 1, entity);
+            JdbcSupport.setUuid(statement, 7, entity.getId());
+        }, COLLECTION) == 0) {
+            throw new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    /**
+     * @param fields names of selected fields
+     * @return query selecting only columns of selected fields (and id), brand is joined only when selected
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    private static String projection(Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.DEVICE_FIELDS);
+        String columns = Stream.concat(Stream.of("id"), fields.stream().filter(field -> !field.equals("id")))
+                .map(FIELD_COLUMNS::get)
+                .collect(Collectors.joining(", "));//id is always selected, so column list is never empty
+        return "SELECT " + columns + " FROM devices d"
+                + (fields.contains("brand") ? " LEFT JOIN brands b ON b.id = d.brand_id" : "");
+    }
+
+    /**
+     * @param statement insert statement
+     * @param entity    inserted device
+     * @throws SQLException if parameter can not be set
+     */
+    private static void bind(PreparedStatement statement, Device entity) throws SQLException {
+        JdbcSupport.setUuid(statement, 1, entity.getId());
+        bindValues(statement, 2, entity);
+    }
+
+    /**
+     * Binds all columns except id in order: name, price, mass, device type, brand's id and owner's id.
+     *
+     * @param statement statement
+     * @param first     index of the first parameter
+     * @param entity    bound device
+     * @throws SQLException if parameter can not be set
+     */
+    private static void bindValues(PreparedStatement statement, int first, Device entity) throws SQLException {
+        statement.setString(first, entity.getName());
+        JdbcSupport.setInteger(statement, first + 1, entity.getPrice());
+        JdbcSupport.setInteger(statement, first + 2, entity.getMass());
+        statement.setString(first + 3, entity.getDeviceType() != null ? entity.getDeviceType().name() : null);
+        JdbcSupport.setUuid(statement, first + 4, entity.getBrand() != null ? entity.getBrand().getId() : null);
+        JdbcSupport.setUuid(statement, first + 5, entity.getUser() != null ? entity.getUser().getId() : null);
+    }
+
+    /**
+     * @param resultSet result set positioned at the row selected with {@link #SELECT}
+     * @return mapped device with brand and id-only owner
+     * @throws SQLException if column can not be read
+     */
+    private static Device map(ResultSet resultSet) throws SQLException {
+        UUID user = JdbcSupport.getUuid(resultSet, "user_id");
+        String deviceType = resultSet.getString("device_type");
+        return Device.builder()
+                .id(JdbcSupport.getUuid(resultSet, "id"))
+                .name(resultSet.getString("name"))
+                .price(JdbcSupport.getInteger(resultSet, "price"))
+                .mass(JdbcSupport.getInteger(resultSet, "mass"))
+                .deviceType(deviceType != null ? DeviceType.valueOf(deviceType) : null)
+                .brand(mapBrand(resultSet))
+                .user(user != null ? User.builder().id(user).build() : null)
+                .build();
+    }
+
+    /**
+     * @param resultSet result set positioned at the row selected with {@link #projection(Set)}
+     * @param fields    names of selected fields
+     * @return mapped device with only selected fields set
+     * @throws SQLException if column can not be read
+     */
+    private static Device map(ResultSet resultSet, Set<String> fields) throws SQLException {
+        String deviceType = fields.contains("deviceType") ? resultSet.getString("device_type") : null;
+        return Device.builder()
+                .id(fields.contains("id") ? JdbcSupport.getUuid(resultSet, "id") : null)
+                .name(fields.contains("name") ? resultSet.getString("name") : null)
+                .price(fields.contains("price") ? JdbcSupport.getInteger(resultSet, "price") : null)
+                .mass(fields.contains("mass") ? JdbcSupport.getInteger(resultSet, "mass") : null)
+                .deviceType(deviceType != null ? DeviceType.valueOf(deviceType) : null)
+                .brand(fields.contains("brand") ? mapBrand(resultSet) : null)
+                .build();
+    }
+
+    /**
+     * @param resultSet result set positioned at the row with joined brand's columns
+     * @return mapped brand or null if device has no brand
+     * @throws SQLException if column can not be read
+     */
+    private static Brand mapBrand(ResultSet resultSet) throws SQLException {
+        UUID id = JdbcSupport.getUuid(resultSet, "brand_id");
+        if (id == null) {
+            return null;
+        }
+        OffsetDateTime date = resultSet.getObject("brand_date", OffsetDateTime.class);
+        return Brand.builder()
+                .id(id)
+                .name(resultSet.getString("brand_name"))
+                .dateOfEstablishment(date != null ? Date.from(date.toInstant()) : null)
+                .build();
+    }
+
+}
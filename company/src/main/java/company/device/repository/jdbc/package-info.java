@@ -0,0 +1,4 @@
+/**
+ * Devices related repositories implementations backed by relational database accessed with JDBC.
+ */
+package company.device.repository.jdbc;
@@ -3,10 +3,13 @@ package company.device.repository.memory;
 import company.device.entity.Brand;
 import company.device.repository.api.BrandRepository;
 import company.datastore.component.DataStore;
+import company.repository.api.Page;
+import company.repository.api.Version;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for Brand entity. Repositories should be used in business layer (e.g.: in services).
@@ -28,9 +31,17 @@ public class BrandInMemoryRepository implements BrandRepository {
 
     @Override
     public Optional<Brand> find(UUID id) {
-        return store.findAllBrands().stream()
-                .filter(Brand -> Brand.getId().equals(id))
-                .findFirst();
+        return store.findBrand(id);
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return store.findVersion(id);
+    }
+
+    @Override
+    public Version version() {
+        return store.brandsVersion();
     }
 
     @Override
@@ -38,6 +49,21 @@ public class BrandInMemoryRepository implements BrandRepository {
         return store.findAllBrands();
     }
 
+    @Override
+    public Page<Brand, UUID> findPage(UUID cursor, int limit) {
+        return store.findBrandsPage(cursor, limit);
+    }
+
+    @Override
+    public Stream<Brand> stream() {
+        return store.streamAllBrands();
+    }
+
+    @Override
+    public Stream<Brand> streamSnapshot() {
+        return store.streamBrandsSnapshot();
+    }
+
     @Override
     public void create(Brand entity) {
         store.createBrand(entity);
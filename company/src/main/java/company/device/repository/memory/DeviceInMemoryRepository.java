@@ -3,13 +3,18 @@ package company.device.repository.memory;
 import company.device.entity.Brand;
 import company.device.entity.Device;
 import company.datastore.component.DataStore;
+import company.repository.api.Page;
+import company.repository.api.Version;
+import company.device.repository.api.DeviceFilter;
 import company.device.repository.api.DeviceRepository;
 import company.user.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository for device entity. Repositories should be used in business layer (e.g.: in services).
@@ -30,9 +35,32 @@ public class DeviceInMemoryRepository implements DeviceRepository {
 
     @Override
     public Optional<Device> find(UUID id) {
-        return store.findAllDevices().stream()
-                .filter(device -> device.getId().equals(id))
-                .findFirst();
+        return store.findDevice(id);
+    }
+
+    @Override
+    public Optional<Device> find(UUID id, Set<String> fields) {
+        return store.findDevice(id, fields);
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return store.findVersion(id);
+    }
+
+    @Override
+    public Version version() {
+        return store.devicesVersion();
+    }
+
+    @Override
+    public Page<Device, UUID> findPage(UUID cursor, int limit) {
+        return store.findDevicesPage(DeviceFilter.ALL, cursor, limit);
+    }
+
+    @Override
+    public Page<Device, UUID> findPage(DeviceFilter filter, UUID cursor, int limit) {
+        return store.findDevicesPage(filter, cursor, limit);
     }
 
     @Override
@@ -40,11 +68,31 @@ public class DeviceInMemoryRepository implements DeviceRepository {
         return store.findAllDevices();
     }
 
+    @Override
+    public Stream<Device> stream() {
+        return store.streamAllDevices();
+    }
+
+    @Override
+    public Stream<Device> streamSnapshot() {
+        return store.streamDevicesSnapshot();
+    }
+
+    @Override
+    public Stream<Device> stream(Set<String> fields) {
+        return store.streamAllDevices(fields);
+    }
+
     @Override
     public void create(Device entity) {
         store.createDevice(entity);
     }
 
+    @Override
+    public void createAll(Collection<Device> entities) {
+        store.createDevices(entities);
+    }
+
     @Override
     public void delete(Device entity) {
         store.deleteDevice(entity.getId());
@@ -57,24 +105,18 @@ public class DeviceInMemoryRepository implements DeviceRepository {
 
     @Override
     public Optional<Device> findByIdAndUser(UUID id, User user) {
-        return store.findAllDevices().stream()
-                .filter(device -> device.getUser().equals(user))
-                .filter(device -> device.getId().equals(id))
-                .findFirst();
+        return store.findDevice(id)
+                .filter(device -> device.getUser() != null && device.getUser().getId().equals(user.getId()));
     }
 
     @Override
     public List<Device> findAllByUser(User user) {
-        return store.findAllDevices().stream()
-                .filter(device -> user.equals(device.getUser()))
-                .collect(Collectors.toList());
+        return store.findAllDevicesByUser(user.getId());
     }
 
     @Override
     public List<Device> findAllByBrand(Brand Brand) {
-        return store.findAllDevices().stream()
-                .filter(device -> Brand.equals(device.getBrand()))
-                .collect(Collectors.toList());
+        return store.findAllDevicesByBrand(Brand.getId());
     }
 
 }
@@ -2,10 +2,13 @@ package company.device.service;
 
 import company.device.entity.Brand;
 import company.device.repository.api.BrandRepository;
+import company.repository.api.Page;
+import company.repository.api.Version;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Service layer for all business actions regarding device's Brand entity.
@@ -32,6 +35,13 @@ public class BrandService {
         return repository.find(id);
     }
 
+    /**
+     * @return version of all Brands
+     */
+    public Version findAllVersion() {
+        return repository.version();
+    }
+
     /**
      * @return all available Brands
      */
@@ -39,6 +49,29 @@ public class BrandService {
         return repository.findAll();
     }
 
+    /**
+     * @param cursor id of the last Brand on previous page or null for the first page
+     * @param limit  maximal number of Brands on the page
+     * @return page of Brands
+     */
+    public Page<Brand, UUID> findPage(UUID cursor, int limit) {
+        return repository.findPage(cursor, limit);
+    }
+
+    /**
+     * @return lazy stream of all available Brands
+     */
+    public Stream<Brand> streamAll() {
+        return repository.stream();
+    }
+
+    /**
+     * @return lazy stream of all Brands from the moment of the call, to be closed by the caller
+     */
+    public Stream<Brand> streamSnapshot() {
+        return repository.streamSnapshot();
+    }
+
     /**
      * Stores new Brand in the data store.
      *
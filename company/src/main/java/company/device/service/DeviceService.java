@@ -3,14 +3,22 @@ package company.device.service;
 import company.device.entity.Device;
 import company.device.repository.api.DeviceRepository;
 import company.device.repository.api.BrandRepository;
+import company.device.repository.api.DeviceFilter;
+import company.repository.api.Page;
+import company.repository.api.Version;
 import company.user.entity.User;
+import company.user.repository.api.FileRepository;
 import company.user.repository.api.UserRepository;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Service layer for all business actions regarding device entity.
@@ -32,15 +40,23 @@ public class DeviceService {
      */
     private final UserRepository userRepository;
 
+    /**
+     * Repository for devices' images.
+     */
+    private final FileRepository imageRepository;
+
     /**
      * @param deviceRepository  repository for device entity
      * @param brandRepository repository for Brand entity
      * @param userRepository repository for user entity
+     * @param imageRepository repository for devices' images
      */
-    public DeviceService(DeviceRepository deviceRepository, BrandRepository brandRepository, UserRepository userRepository) {
+    public DeviceService(DeviceRepository deviceRepository, BrandRepository brandRepository, UserRepository userRepository,
+                         FileRepository imageRepository) {
         this.deviceRepository = deviceRepository;
         this.brandRepository = brandRepository;
         this.userRepository = userRepository;
+        this.imageRepository = imageRepository;
     }
 
     /**
@@ -53,6 +69,59 @@ public class DeviceService {
         return deviceRepository.find(id);
     }
 
+    /**
+     * Finds single device reading only selected fields.
+     *
+     * @param id     device's id
+     * @param fields names of selected fields
+     * @return container with partial device
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Optional<Device> find(UUID id, Set<String> fields) {
+        return deviceRepository.find(id, fields);
+    }
+
+    /**
+     * @param id device's id
+     * @return container (can be empty) with device's version
+     */
+    public Optional<Version> findVersion(UUID id) {
+        return deviceRepository.findVersion(id);
+    }
+
+    /**
+     * @return version of all devices
+     */
+    public Version findAllVersion() {
+        return deviceRepository.version();
+    }
+
+    /**
+     * @param id brand's id
+     * @return container (empty if there is no brand) with version of the brand's devices
+     */
+    public Optional<Version> findAllByBrandVersion(UUID id) {
+        return brandRepository.findVersion(id)
+                .map(version -> version.combine(deviceRepository.version()));
+    }
+
+    /**
+     * @param id user's id
+     * @return container (empty if there is no user) with version of the user's devices
+     */
+    public Optional<Version> findAllByUserVersion(UUID id) {
+        return userRepository.findVersion(id)
+                .map(version -> version.combine(deviceRepository.version()));
+    }
+
+    /**
+     * @param id device's id
+     * @return container (can be empty) with version of device's image
+     */
+    public Optional<Version> findImageVersion(UUID id) {
+        return imageRepository.version(id);
+    }
+
     /**
      * @param id   device's id
      * @param user existing user
@@ -69,6 +138,51 @@ public class DeviceService {
         return deviceRepository.findAll();
     }
 
+    /**
+     * @return lazy stream of all available devices
+     */
+    public Stream<Device> streamAll() {
+        return deviceRepository.stream();
+    }
+
+    /**
+     * @return lazy stream of all devices from the moment of the call, to be closed by the caller
+     */
+    public Stream<Device> streamSnapshot() {
+        return deviceRepository.streamSnapshot();
+    }
+
+    /**
+     * @param fields names of selected fields
+     * @return lazy stream of all available devices with only selected fields read
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Stream<Device> streamAll(Set<String> fields) {
+        return deviceRepository.stream(fields);
+    }
+
+    /**
+     * @param filter devices' criteria
+     * @param cursor id of the last device on previous page or null for the first page
+     * @param limit  maximal number of devices on the page
+     * @return page of devices matching the filter
+     */
+    public Page<Device, UUID> findPage(DeviceFilter filter, UUID cursor, int limit) {
+        return deviceRepository.findPage(filter, cursor, limit);
+    }
+
+    /**
+     * @param id     Brand's id
+     * @param filter devices' criteria
+     * @param cursor id of the last device on previous page or null for the first page
+     * @param limit  maximal number of devices on the page
+     * @return container (empty if there is no Brand) with page of Brand's devices matching the filter
+     */
+    public Optional<Page<Device, UUID>> findPageByBrand(UUID id, DeviceFilter filter, UUID cursor, int limit) {
+        return brandRepository.find(id)
+                .map(brand -> deviceRepository.findPage(filter.withBrand(id), cursor, limit));
+    }
+
     /**
      * @param user existing user, device's owner
      * @return all available devices of the selected user
@@ -86,6 +200,16 @@ public class DeviceService {
         deviceRepository.create(device);
     }
 
+    /**
+     * Creates new devices all at once, either all are created or none.
+     *
+     * @param devices new devices
+     * @throws IllegalArgumentException if any device is not unique or its relationships do not exist
+     */
+    public void createAll(Collection<Device> devices) throws IllegalArgumentException {
+        deviceRepository.createAll(devices);
+    }
+
     /**
      * Updates existing device.
      *
@@ -99,9 +223,12 @@ public class DeviceService {
      * Deletes existing device.
      *
      * @param id existing device's id to be deleted
+     * @throws IllegalArgumentException if device with provided id does not exist
      */
-    public void delete(UUID id) {
-        deviceRepository.delete(deviceRepository.find(id).orElseThrow());
+    public void delete(UUID id) throws IllegalArgumentException {
+        deviceRepository.delete(deviceRepository.find(id).orElseThrow(
+                () -> new IllegalArgumentException("The device with id \"%s\" does not exist".formatted(id))));
+        imageRepository.delete(id);
     }
 
     /**
@@ -113,14 +240,21 @@ public class DeviceService {
     public void updatePortrait(UUID id, InputStream is) {
         deviceRepository.find(id).ifPresent(device -> {
             try {
-                device.setImage(is.readAllBytes());
-                deviceRepository.update(device);
+                imageRepository.save(id, is);
             } catch (IOException ex) {
                 throw new IllegalStateException(ex);
             }
         });
     }
 
+    /**
+     * @param id device's id
+     * @return container (can be empty) with channel of device's image, to be closed by the caller
+     */
+    public Optional<FileChannel> openImage(UUID id) {
+        return imageRepository.open(id);
+    }
+
     public Optional<List<Device>> findAllByBrand(UUID id) {
         return brandRepository.find(id)
                 .map(deviceRepository::findAllByBrand);
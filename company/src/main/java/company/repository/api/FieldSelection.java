@@ -0,0 +1,98 @@
+package company.repository.api;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.user.entity.User;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Field selection (projection) of entities. Defines which fields can be selected and creates partial copies of
+ * entities with only selected fields set. Repositories use it to read only selected fields, controllers to cut down
+ * elements of pages which are read in full.
+ */
+public final class FieldSelection {
+
+    /**
+     * Device's fields which can be selected in projection. Owner is never presented, so it is not projectable.
+     */
+    public static final Set<String> DEVICE_FIELDS = Set.of("id", "name", "price", "mass", "brand", "deviceType");
+
+    /**
+     * User's fields which can be selected in projection. Credentials are never presented, so they are not projectable.
+     */
+    public static final Set<String> USER_FIELDS = Set.of("id", "login", "name", "surname", "birthDate", "email");
+
+    private FieldSelection() {
+    }
+
+    /**
+     * Creates partial copy of the device with only selected fields set. Brand is copied only when it is selected, so
+     * unselected relationships are never touched.
+     *
+     * @param device device to be copied
+     * @param fields names of selected fields, see {@link #DEVICE_FIELDS}
+     * @return partial copy of the device
+     */
+    public static Device project(Device device, Set<String> fields) {
+        return Device.builder()
+                .id(fields.contains("id") ? device.getId() : null)
+                .name(fields.contains("name") ? device.getName() : null)
+                .price(fields.contains("price") ? device.getPrice() : null)
+                .brand(fields.contains("brand") && device.getBrand() != null ? copy(device.getBrand()) : null)
+                .mass(fields.contains("mass") ? device.getMass() : null)
+                .deviceType(fields.contains("deviceType") ? device.getDeviceType() : null)
+                .build();
+    }
+
+    /**
+     * Creates partial copy of the user with only selected fields set.
+     *
+     * @param user   user to be copied
+     * @param fields names of selected fields, see {@link #USER_FIELDS}
+     * @return partial copy of the user
+     */
+    public static User project(User user, Set<String> fields) {
+        return User.builder()
+                .id(fields.contains("id") ? user.getId() : null)
+                .login(fields.contains("login") ? user.getLogin() : null)
+                .name(fields.contains("name") ? user.getName() : null)
+                .surname(fields.contains("surname") ? user.getSurname() : null)
+                .birthDate(fields.contains("birthDate") ? user.getBirthDate() : null)
+                .email(fields.contains("email") ? user.getEmail() : null)
+                .build();
+    }
+
+    /**
+     * @param brand brand to be copied
+     * @return deep copy of the brand
+     */
+    private static Brand copy(Brand brand) {
+        return Brand.builder()
+                .id(brand.getId())
+                .name(brand.getName())
+                .dateOfEstablishment(brand.getDateOfEstablishment() != null
+                        ? new Date(brand.getDateOfEstablishment().getTime())
+                        : null)
+                .build();
+    }
+
+    /**
+     * Checks if all selected fields can be projected.
+     *
+     * @param fields    names of selected fields
+     * @param supported names of projectable fields
+     * @return selected fields
+     * @throws IllegalArgumentException if any of selected fields is not supported
+     */
+    public static Set<String> requireFields(Set<String> fields, Set<String> supported) throws IllegalArgumentException {
+        for (String field : fields) {
+            if (!supported.contains(field)) {
+                throw new IllegalArgumentException("The field \"%s\" is not supported".formatted(field));
+            }
+        }
+        return fields;
+    }
+
+}
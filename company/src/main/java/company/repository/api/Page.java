@@ -0,0 +1,15 @@
+package company.repository.api;
+
+import java.util.List;
+
+/**
+ * Single page of entities ordered by primary key. Next page can be requested using {@link #next()} as a cursor.
+ *
+ * @param elements entities on this page
+ * @param next     cursor (primary key of the last element) of the next page or null if there are no more elements
+ * @param <E>      type of the entity
+ * @param <K>      type of the primary key
+ */
+public record Page<E, K>(List<E> elements, K next) {
+
+}
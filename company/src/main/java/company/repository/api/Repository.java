@@ -1,12 +1,16 @@
 package company.repository.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for accessing data from underlying data stores. The interface does not define how the data
  * is retrieved. The interface defines only basic methods which are not aware of entity object structure. Additional
- * methods (like find by or order) should be defined as methods in implementing class.
+ * methods (like find by or order) should be defined as methods in implementing class. Returned entities can be shared
+ * snapshots of stored values, so they should not be modified. In order to change entity create modified copy and pass
+ * it to {@link #update(Object)}.
  *
  * @param <E> type of the entity
  * @param <K> type of the primary key
@@ -21,6 +25,21 @@ public interface Repository<E, K> {
      */
     Optional<E> find(K id);
 
+    /**
+     * Find version of entity object. Version changes every time the entity is changed.
+     *
+     * @param id object primary key
+     * @return container (can be empty) with entity object's version
+     */
+    Optional<Version> findVersion(K id);
+
+    /**
+     * Find version of all entities. Version changes every time any of the entities is created, changed or deleted.
+     *
+     * @return version of all entities
+     */
+    Version version();
+
     /**
      * Find all entities.
      *
@@ -28,6 +47,33 @@ public interface Repository<E, K> {
      */
     List<E> findAll();
 
+    /**
+     * Find single page of entities ordered by primary key.
+     *
+     * @param cursor primary key of the last entity on previous page or null for the first page
+     * @param limit  maximal number of entities on the page
+     * @return page (can be empty) of entities
+     */
+    Page<E, K> findPage(K cursor, int limit);
+
+    /**
+     * Stream all entities lazily. Can be used to process all entities without loading them all into memory.
+     *
+     * @return stream (can be empty) with all objects
+     */
+    Stream<E> stream();
+
+    /**
+     * Stream all entities lazily as they were at the moment of the call, regardless of changes made while the stream
+     * is consumed. Stream must be closed. By default it is the same as {@link #stream()}, which is enough when single
+     * query is consistent (e.g. in databases with snapshot isolation).
+     *
+     * @return stream (can be empty) with all objects from the moment of the call
+     */
+    default Stream<E> streamSnapshot() {
+        return stream();
+    }
+
     /**
      * Save new object in the data store.
      *
@@ -35,6 +81,16 @@ public interface Repository<E, K> {
      */
     void create(E entity);
 
+    /**
+     * Save new objects in the data store. Implementations can store all objects at once (e.g. with single database
+     * batch), by default objects are saved one by one, so when any of them is rejected the previous ones stay saved.
+     *
+     * @param entities objects to be saved
+     */
+    default void createAll(Collection<E> entities) {
+        entities.forEach(this::create);
+    }
+
     /**
      * Delete object from the data store.
      *
@@ -0,0 +1,32 @@
+package company.repository.api;
+
+import java.time.Instant;
+
+/**
+ * Version of stored data used for conditional requests. Tag changes every time the data changes, so it can be used as
+ * strong entity tag.
+ *
+ * @param tag          opaque value unique for each state of the data
+ * @param lastModified moment of the last modification
+ */
+public record Version(String tag, Instant lastModified) {
+
+    /**
+     * @return tag formatted as HTTP entity tag (quoted string)
+     */
+    public String etag() {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Combines version of the data with version of other data it depends on.
+     *
+     * @param other version of other data
+     * @return version changing whenever any of the versions changes
+     */
+    public Version combine(Version other) {
+        return new Version(tag + "-" + other.tag,
+                lastModified.isAfter(other.lastModified) ? lastModified : other.lastModified);
+    }
+
+}
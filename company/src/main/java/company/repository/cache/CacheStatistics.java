@@ -0,0 +1,27 @@
+package company.repository.cache;
+
+/**
+ * Snapshot of the cache statistics.
+ *
+ * @param hits      number of reads served from the cache
+ * @param misses    number of reads passed to the underlying repository
+ * @param evictions number of entries evicted because the cache was full
+ * @param size      current number of cached entries
+ */
+public record CacheStatistics(long hits, long misses, long evictions, long size) {
+
+    /**
+     * @return part of reads served from the cache (0 when there were no reads)
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=%d, misses=%d (hit rate %.1f%%), evictions=%d, size=%d"
+                .formatted(hits, misses, hitRate() * 100, evictions, size);
+    }
+
+}
@@ -0,0 +1,156 @@
+package company.repository.cache;
+
+import company.repository.api.Page;
+import company.repository.api.Repository;
+import company.repository.api.Version;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repository decorator caching entities found by primary key. All other reads are passed to the underlying repository.
+ * Cached entity is invalidated after every write, so the cache never serves entity older than the last write made
+ * through this decorator. Entities are shared between callers, which is allowed by the {@link Repository} contract
+ * but safe only when callers never modify them, so the decorator is used only together with immutable entities.
+ * <p>
+ * Some entities embed other entities (e.g. device embeds its owner), so the decorator can have dependent decorators
+ * which are cleared whenever an entity is updated or deleted.
+ *
+ * @param <E> type of the entity
+ * @param <K> type of the primary key
+ */
+public class CachingRepository<E, K> implements Repository<E, K> {
+
+    /**
+     * Underlying repository.
+     */
+    protected final Repository<E, K> delegate;
+
+    /**
+     * Cache of entities.
+     */
+    protected final EntityCache<K, E> cache;
+
+    /**
+     * Extracts primary key of the entity.
+     */
+    private final Function<E, K> idFunction;
+
+    /**
+     * Caches cleared when entity is updated or deleted.
+     */
+    private final List<CachingRepository<?, ?>> dependents = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param delegate    underlying repository
+     * @param idFunction  extracts primary key of the entity
+     * @param maximumSize maximal number of cached entities
+     */
+    public CachingRepository(Repository<E, K> delegate, Function<E, K> idFunction, int maximumSize) {
+        this.delegate = delegate;
+        this.idFunction = idFunction;
+        this.cache = new EntityCache<>(maximumSize);
+    }
+
+    /**
+     * Registers decorator of repository which entities embed entities of this repository.
+     *
+     * @param dependent decorator cleared when entity of this repository is updated or deleted
+     */
+    public void addDependent(CachingRepository<?, ?> dependent) {
+        dependents.add(dependent);
+    }
+
+    /**
+     * @return current cache statistics
+     */
+    public CacheStatistics statistics() {
+        return cache.statistics();
+    }
+
+    @Override
+    public Optional<E> find(K id) {
+        return cache.get(id, delegate::find);
+    }
+
+    @Override
+    public Optional<Version> findVersion(K id) {
+        return delegate.findVersion(id);
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public List<E> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Page<E, K> findPage(K cursor, int limit) {
+        return delegate.findPage(cursor, limit);
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public Stream<E> streamSnapshot() {
+        return delegate.streamSnapshot();
+    }
+
+    @Override
+    public void create(E entity) {
+        try {
+            delegate.create(entity);
+        } finally {
+            cache.invalidate(idFunction.apply(entity));
+        }
+    }
+
+    @Override
+    public void createAll(Collection<E> entities) {
+        try {
+            delegate.createAll(entities);
+        } finally {
+            entities.forEach(entity -> cache.invalidate(idFunction.apply(entity)));
+        }
+    }
+
+    @Override
+    public void delete(E entity) {
+        try {
+            delegate.delete(entity);
+        } finally {
+            invalidate(idFunction.apply(entity));
+        }
+    }
+
+    @Override
+    public void update(E entity) {
+        try {
+            delegate.update(entity);
+        } finally {
+            invalidate(idFunction.apply(entity));
+        }
+    }
+
+    /**
+     * Removes changed entity from the cache and clears dependent caches.
+     *
+     * @param id primary key of changed entity
+     */
+    private void invalidate(K id) {
+        cache.invalidate(id);
+        dependents.forEach(dependent -> dependent.cache.invalidateAll());
+    }
+
+}
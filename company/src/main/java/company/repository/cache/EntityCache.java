@@ -0,0 +1,174 @@
+package company.repository.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of entities with least recently used eviction. Cache is divided into independently locked segments
+ * (selected by key's hash), each segment evicts its own least recently used entry, so eviction order is approximately
+ * LRU while readers of different keys rarely wait for each other. Only found values are cached, absence is not.
+ * <p>
+ * Value loaded by a reader is not cached when the segment was invalidated during the load, so a reader racing with a
+ * writer never caches the value from before the write.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the cached value
+ */
+public class EntityCache<K, V> {
+
+    /**
+     * Single independently locked part of the cache.
+     */
+    private final class Segment extends LinkedHashMap<K, V> {
+
+        /**
+         * Maximal number of entries in the segment.
+         */
+        private final int capacity;
+
+        /**
+         * Number of invalidations in the segment, used to detect loads racing with writes.
+         */
+        private long invalidations;
+
+        /**
+         * @param capacity maximal number of entries in the segment
+         */
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Number of segments (power of two).
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Cache segments.
+     */
+    private final List<Segment> segments;
+
+    /**
+     * Number of reads served from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of reads passed to the loader.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of evicted entries.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize maximal number of cached entries (at least 1)
+     */
+    public EntityCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        int segmentCount = Math.min(SEGMENTS, Integer.highestOneBit(maximumSize));
+        segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment(maximumSize / segmentCount));
+        }
+    }
+
+    /**
+     * Returns cached value or loads it and stores in the cache.
+     *
+     * @param key    key of the value
+     * @param loader loads value when it is not cached
+     * @return container (can be empty) with the value
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        Segment segment = segment(key);
+        long stamp;
+        synchronized (segment) {
+            V value = segment.get(key);
+            if (value != null) {
+                hits.increment();
+                return Optional.of(value);
+            }
+            stamp = segment.invalidations;
+        }
+        misses.increment();
+        Optional<V> loaded = loader.apply(key);
+        loaded.ifPresent(value -> {
+            synchronized (segment) {
+                if (segment.invalidations == stamp) {
+                    segment.put(key, value);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Removes cached value. Should be called after the value was changed in the underlying repository.
+     *
+     * @param key key of the value
+     */
+    public void invalidate(K key) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.invalidations++;
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return current cache statistics
+     */
+    public CacheStatistics statistics() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * @param key key of the value
+     * @return segment responsible for the key
+     */
+    private Segment segment(K key) {
+        int hash = key.hashCode();
+        return segments.get((hash ^ (hash >>> 16)) & (segments.size() - 1));
+    }
+
+}
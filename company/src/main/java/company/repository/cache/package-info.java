@@ -0,0 +1,4 @@
+/**
+ * Caching decorators of repositories. Can be put in front of any repository implementation.
+ */
+package company.repository.cache;
@@ -0,0 +1,409 @@
+package company.repository.jdbc;
+
+import company.repository.api.Version;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Common JDBC operations used by JDBC repositories. Connections are taken from provided {@link DataSource} and
+ * returned right after the operation (or after closing the stream), so connection pooling and prepared statements
+ * caching are provided by the data source (e.g. container managed pool configured in the server). All statements use
+ * constant SQL with parameters, so cached statements are reused.
+ * <p>
+ * Integrity constraint violations (duplicated id or login, missing related entity) are reported as
+ * {@link IllegalArgumentException} like in the in-memory data store, other database errors as
+ * {@link IllegalStateException}.
+ */
+public class JdbcSupport {
+
+    /**
+     * Binds parameters of the statement.
+     */
+    @FunctionalInterface
+    public interface Binder {
+
+        /**
+         * @param statement prepared statement
+         * @throws SQLException if parameter can not be set
+         */
+        void bind(PreparedStatement statement) throws SQLException;
+
+    }
+
+    /**
+     * Binds parameters of the statement for single element of the batch.
+     *
+     * @param <T> type of the element
+     */
+    @FunctionalInterface
+    public interface BatchBinder<T> {
+
+        /**
+         * @param statement prepared statement
+         * @param element   batch element
+         * @throws SQLException if parameter can not be set
+         */
+        void bind(PreparedStatement statement, T element) throws SQLException;
+
+    }
+
+    /**
+     * Maps current row of the result set.
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+
+        /**
+         * @param resultSet result set positioned at the row
+         * @return mapped row
+         * @throws SQLException if column can not be read
+         */
+        T map(ResultSet resultSet) throws SQLException;
+
+    }
+
+    /**
+     * Number of rows fetched at once by streams.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    /**
+     * Maximal number of rows inserted with single batch execution.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Source of pooled connections.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource source of pooled connections
+     */
+    public JdbcSupport(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Runs schema script and creates missing collection versions. Can be called on every start.
+     *
+     * @param collections names of versioned collections
+     * @throws IllegalStateException if schema can not be created
+     */
+    public void createSchema(String... collections) throws IllegalStateException {
+        try (InputStream is = JdbcSupport.class.getResourceAsStream("schema.sql");
+             Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            String script = new String(is.readAllBytes(), StandardCharsets.UTF_8).replaceAll("--[^\n]*", "");
+            for (String sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+            for (String collection : collections) {
+                if (version(connection, collection).isEmpty()) {
+                    try (PreparedStatement insert = connection.prepareStatement("INSERT INTO collection_versions "
+                            + "(name, version, modified) VALUES (?, NEXT VALUE FOR version_sequence, CURRENT_TIMESTAMP)")) {
+                        insert.setString(1, collection);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read database schema", ex);
+        } catch (SQLException ex) {
+            throw translate(ex);
+        }
+    }
+
+    /**
+     * @param sql    query
+     * @param binder parameters binder
+     * @param mapper row mapper
+     * @param <T>    type of the result
+     * @return list (can be empty) of all mapped rows
+     */
+    public <T> List<T> query(String sql, Binder binder, RowMapper<T> mapper) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<T> result = new ArrayList<>();
+                while (resultSet.next()) {
+                    result.add(mapper.map(resultSet));
+                }
+                return result;
+            }
+        } catch (SQLException ex) {
+            throw translate(ex);
+        }
+    }
+
+    /**
+     * @param sql    query returning at most one row
+     * @param binder parameters binder
+     * @param mapper row mapper
+     * @param <T>    type of the result
+     * @return container (can be empty) with mapped row
+     */
+    public <T> Optional<T> queryOne(String sql, Binder binder, RowMapper<T> mapper) {
+        return query(sql, binder, mapper).stream().findFirst();
+    }
+
+    /**
+     * Lazily maps rows of the query. Connection is held until the stream is closed, so the stream must be closed by the
+     * caller.
+     *
+     * @param sql    query
+     * @param binder parameters binder
+     * @param mapper row mapper
+     * @param <T>    type of the result
+     * @return lazy stream of mapped rows
+     */
+    public <T> Stream<T> stream(String sql, Binder binder, RowMapper<T> mapper) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            binder.bind(statement);
+            ResultSet resultSet = statement.executeQuery();
+            Connection owner = connection;
+            return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(resultSet));
+                        return true;
+                    } catch (SQLException ex) {
+                        throw translate(ex);
+                    }
+                }
+            }, false).onClose(() -> {
+                try {
+                    owner.close();//closes statement and result set as well
+                } catch (SQLException ex) {
+                    throw translate(ex);
+                }
+            });
+        } catch (SQLException ex) {
+            close(connection);
+            throw translate(ex);
+        }
+    }
+
+    /**
+     * Executes single data manipulation statement and bumps collection version when any row was changed.
+     *
+     * @param sql        statement
+     * @param binder     parameters binder
+     * @param collection name of changed collection
+     * @return number of changed rows
+     */
+    public int update(String sql, Binder binder, String collection) {
+        int count;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            count = statement.executeUpdate();
+            if (count > 0) {
+                touch(connection, collection);
+            }
+        } catch (SQLException ex) {
+            throw translate(ex);
+        }
+        return count;
+    }
+
+    /**
+     * Executes statement for all elements in batches within single transaction. Either all elements are stored or
+     * none.
+     *
+     * @param sql        statement
+     * @param elements   batch elements
+     * @param binder     parameters binder
+     * @param collection name of changed collection
+     * @param <T>        type of the element
+     */
+    public <T> void batch(String sql, Collection<T> elements, BatchBinder<T> binder, String collection) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (T element : elements) {
+                    binder.bind(statement, element);
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            touch(connection, collection);
+        } catch (SQLException ex) {
+            throw translate(ex);
+        }
+    }
+
+    /**
+     * @param collection name of the collection
+     * @return version of the collection
+     */
+    public Version version(String collection) {
+        try (Connection connection = dataSource.getConnection()) {
+            return version(connection, collection)
+                    .orElseThrow(() -> new IllegalStateException("No version of %s".formatted(collection)));
+        } catch (SQLException ex) {
+            throw translate(ex);
+        }
+    }
+
+    /**
+     * Marks collection as modified. Executed as separate statement after the change, so the version row is locked only
+     * for a moment and concurrent writers are not serialized on it.
+     *
+     * @param connection open connection
+     * @param collection name of the collection
+     * @throws SQLException if version can not be updated
+     */
+    private static void touch(Connection connection, String collection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE collection_versions "
+                + "SET version = NEXT VALUE FOR version_sequence, modified = CURRENT_TIMESTAMP WHERE name = ?")) {
+            statement.setString(1, collection);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @param connection open connection
+     * @param collection name of the collection
+     * @return container (can be empty) with version of the collection
+     * @throws SQLException if version can not be read
+     */
+    private static Optional<Version> version(Connection connection, String collection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT version, modified FROM collection_versions WHERE name = ?")) {
+            statement.setString(1, collection);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.of(version(resultSet)) : Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * @param resultSet result set positioned at the row with <code>version</code> and <code>modified</code> columns
+     * @return version of the row
+     * @throws SQLException if columns can not be read
+     */
+    public static Version version(ResultSet resultSet) throws SQLException {
+        return new Version(Long.toHexString(resultSet.getLong("version")),
+                resultSet.getObject("modified", OffsetDateTime.class).toInstant());
+    }
+
+    /**
+     * @param statement prepared statement
+     * @param index     parameter index
+     * @param value     nullable UUID
+     * @throws SQLException if parameter can not be set
+     */
+    public static void setUuid(PreparedStatement statement, int index, UUID value) throws SQLException {
+        statement.setString(index, value != null ? value.toString() : null);
+    }
+
+    /**
+     * @param resultSet result set positioned at the row
+     * @param column    column label
+     * @return nullable UUID
+     * @throws SQLException if column can not be read
+     */
+    public static UUID getUuid(ResultSet resultSet, String column) throws SQLException {
+        String value = resultSet.getString(column);
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    /**
+     * @param statement prepared statement
+     * @param index     parameter index
+     * @param value     nullable integer
+     * @throws SQLException if parameter can not be set
+     */
+    public static void setInteger(PreparedStatement statement, int index, Integer value) throws SQLException {
+        statement.setObject(index, value, Types.INTEGER);
+    }
+
+    /**
+     * @param resultSet result set positioned at the row
+     * @param column    column label
+     * @return nullable integer
+     * @throws SQLException if column can not be read
+     */
+    public static Integer getInteger(ResultSet resultSet, String column) throws SQLException {
+        return resultSet.getObject(column, Integer.class);
+    }
+
+    /**
+     * Translates database error to exception used by repositories.
+     *
+     * @param ex database error
+     * @return {@link IllegalArgumentException} for integrity constraint violations, {@link IllegalStateException}
+     * otherwise
+     */
+    private static RuntimeException translate(SQLException ex) {
+        if (ex.getSQLState() != null && ex.getSQLState().startsWith("23")) {
+            return new IllegalArgumentException(ex.getMessage(), ex);
+        }
+        return new IllegalStateException(ex.getMessage(), ex);
+    }
+
+    /**
+     * @param connection connection to be closed (can be null)
+     */
+    private static void close(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                //original error is reported
+            }
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Common components of JDBC repositories implementations. Schema of the database is defined in
+ * <code>schema.sql</code> resource of this package.
+ */
+package company.repository.jdbc;
@@ -9,19 +9,42 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for cloning objects. Storing objects in memory instead of database can be dangerous because of
  * reference sharing. WHen some object is returned from the data store is has the same reference as the on in the
  * store. Changing something in the object leads to changing the original (the same) objects in the data store. In
  * order to avoid that deep copy (new reference) of the object can be returned. One of the ways of obtaining deep copy
- * without external libraries is serialization mechanism.
+ * without external libraries is serialization mechanism. As serialization is expensive, dedicated
+ * {@link CopyStrategy} can be registered for frequently cloned types. Serialization is used as a fallback for all
+ * other types.
  */
 @Log
 public class CloningUtility {
 
     /**
-     * Created deep copy of provided object using serialization.
+     * Registered copy strategies by exact type of copied object.
+     */
+    private final Map<Class<?>, CopyStrategy<?>> strategies = new ConcurrentHashMap<>();
+
+    /**
+     * Registers copy strategy used instead of serialization for objects of exactly provided type.
+     *
+     * @param type     type of the object
+     * @param strategy strategy creating deep copies
+     * @param <T>      type of the object
+     * @return this utility
+     */
+    public <T extends Serializable> CloningUtility register(Class<T> type, CopyStrategy<T> strategy) {
+        strategies.put(type, strategy);
+        return this;
+    }
+
+    /**
+     * Created deep copy of provided object using registered {@link CopyStrategy} or serialization if there is no
+     * strategy for the object's type.
      *
      * @param object object to be cloned
      * @param <T>    type of the object
@@ -30,6 +53,10 @@ public class CloningUtility {
     @SneakyThrows
     @SuppressWarnings("unchecked")
     public <T extends Serializable> T clone(T object) {
+        CopyStrategy<T> strategy = (CopyStrategy<T>) strategies.get(object.getClass());
+        if (strategy != null) {
+            return strategy.copy(object);
+        }
         try (ByteArrayInputStream is = new ByteArrayInputStream(writeObject(object).toByteArray());
              ObjectInputStream ois = new ObjectInputStream(is)) {
             return (T) ois.readObject();
@@ -0,0 +1,18 @@
+package company.serialization.component;
+
+/**
+ * Strategy of creating deep copy of objects of single type. Implementations should copy every mutable field (including
+ * nested objects) so the result does not share any mutable state with the original.
+ *
+ * @param <T> type of the copied object
+ */
+@FunctionalInterface
+public interface CopyStrategy<T> {
+
+    /**
+     * @param object object to be copied
+     * @return deep copy of the object
+     */
+    T copy(T object);
+
+}
@@ -5,10 +5,17 @@ import company.device.dto.PutDeviceRequest;
 import company.user.dto.GetUserResponse;
 import company.user.dto.GetUsersResponse;
 import company.user.dto.PatchUserRequest;
+import company.user.dto.PostUsersRequest;
 import company.user.dto.PutUserRequest;
+import company.repository.api.Version;
 
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Controller for managing collections Users' representations.
@@ -20,16 +27,72 @@ public interface UserController {
      */
     GetUsersResponse getUsers();
 
+    /**
+     * @param cursor id of the last User on previous page or null for the first page
+     * @param limit  maximal number of Users on the page
+     * @return single page of Users representation
+     */
+    GetUsersResponse getUsers(UUID cursor, int limit);
+
+    /**
+     * @return lazy stream of all Users representations, to be closed by the caller
+     */
+    Stream<GetUsersResponse.User> streamUsers();
+
+    /**
+     * @return lazy stream of full representations of all users from the moment of the call, to be closed by the
+     * caller
+     */
+    Stream<GetUserResponse> exportUsers();
+
     /**
      * @return single User
      */
     GetUserResponse getUser(UUID id);
 
     /**
+     * @param id     user's id
+     * @param fields names of selected fields
+     * @return single User with only selected fields set
+     */
+    GetUserResponse getUser(UUID id, Set<String> fields);
+
+    /**
+     * @return version of all Users representation
+     */
+    Version getUsersVersion();
+
+    /**
+     * @param id user's id
+     * @return container (can be empty) with version of User representation
+     */
+    Optional<Version> getUserVersion(UUID id);
+
+    /**
+     * @param id user's id
+     * @return container (can be empty) with version of user's image
+     */
+    Optional<Version> getUserImageVersion(UUID id);
+
+    /**
+     * Creates user. Password is hashed asynchronously, so the caller should not block waiting for the result.
+     *
      * @param id      user's id
      * @param request new user representation
+     * @return future completed when the user is created, completed exceptionally with
+     * {@link company.controller.servlet.exception.BadRequestException} if the user is invalid
+     */
+    CompletableFuture<Void> putUser(UUID id, PutUserRequest request);
+
+    /**
+     * Creates all users at once, either all are created or none. Passwords are hashed asynchronously, so the caller
+     * should not block waiting for the result.
+     *
+     * @param request new users representation
+     * @return future completed when the users are created, completed exceptionally with
+     * {@link company.controller.servlet.exception.BadRequestException} if any user is invalid
      */
-    void putUser(UUID id, PutUserRequest request);
+    CompletableFuture<Void> postUsers(PostUsersRequest request);
 
     /**
      * @param id      user's id
@@ -46,9 +109,9 @@ public interface UserController {
 
     /**
      * @param id user's id
-     * @return user's image
+     * @return channel of user's image, to be closed by the caller
      */
-    byte[] getUserImage(UUID id);
+    FileChannel getUserImage(UUID id);
 
     /**
      * @param id       device's id
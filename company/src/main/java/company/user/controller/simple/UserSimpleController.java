@@ -3,22 +3,33 @@ package company.user.controller.simple;
 import company.component.DtoFunctionFactory;
 import company.controller.servlet.exception.BadRequestException;
 import company.controller.servlet.exception.NotFoundException;
+import company.controller.servlet.exception.ServiceUnavailableException;
 import company.device.controller.api.BrandController;
 import company.device.dto.GetBrandsResponse;
 import company.device.dto.PatchDeviceRequest;
 import company.device.dto.PutDeviceRequest;
 import company.device.entity.Device;
 import company.device.service.BrandService;
+import company.repository.api.Page;
+import company.repository.api.Version;
 import company.user.controller.api.UserController;
 import company.user.dto.GetUserResponse;
 import company.user.dto.GetUsersResponse;
 import company.user.dto.PatchUserRequest;
+import company.user.dto.PostUsersRequest;
 import company.user.dto.PutUserRequest;
 import company.user.entity.User;
 import company.user.service.UserService;
 
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 /**
  * Simple framework agnostic implementation of controller.
@@ -50,6 +61,26 @@ public class UserSimpleController implements UserController {
         return factory.usersToResponse().apply(service.findAll());
     }
 
+    @Override
+    public GetUsersResponse getUsers(UUID cursor, int limit) {
+        Page<User, UUID> page = service.findPage(cursor, limit);
+        GetUsersResponse response = factory.usersToResponse().apply(page.elements());
+        response.setNext(page.next());
+        return response;
+    }
+
+    @Override
+    public Stream<GetUsersResponse.User> streamUsers() {
+        return service.streamAll()
+                .map(factory.userToUsersEntry());
+    }
+
+    @Override
+    public Stream<GetUserResponse> exportUsers() {
+        return service.streamSnapshot()
+                .map(factory.userToResponse());
+    }
+
     @Override
     public GetUserResponse getUser(UUID id) {
         return service.find(id)
@@ -58,27 +89,65 @@ public class UserSimpleController implements UserController {
     }
 
     @Override
-    public void putUser(UUID id, PutUserRequest request) {
+    public GetUserResponse getUser(UUID id, Set<String> fields) {
         try {
-            service.create(factory.requestToUser().apply(id, request));
+            return service.find(id, fields)
+                    .map(factory.userToResponse())
+                    .orElseThrow(NotFoundException::new);
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException(ex);
         }
     }
 
+    @Override
+    public Version getUsersVersion() {
+        return service.findAllVersion();
+    }
+
+    @Override
+    public Optional<Version> getUserVersion(UUID id) {
+        return service.findVersion(id);
+    }
+
+    @Override
+    public Optional<Version> getUserImageVersion(UUID id) {
+        return service.findImageVersion(id);
+    }
+
+    @Override
+    public CompletableFuture<Void> putUser(UUID id, PutUserRequest request) {
+        try {
+            return badRequestOnInvalid(service.create(factory.requestToUser().apply(id, request)));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        } catch (RejectedExecutionException ex) {
+            throw new ServiceUnavailableException(ex);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> postUsers(PostUsersRequest request) {
+        try {
+            return badRequestOnInvalid(service.createAll(factory.requestToUsers().apply(request)));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex);
+        } catch (RejectedExecutionException ex) {
+            throw new ServiceUnavailableException(ex);
+        }
+    }
+
     @Override
     public void deleteUser(UUID id) {
-        service.find(id).ifPresentOrElse(
-                entity -> service.delete(id),
-                () -> {
-                    throw new NotFoundException();
-                }
-        );
+        try {
+            service.delete(id);
+        } catch (IllegalArgumentException ex) {
+            throw new NotFoundException(ex);
+        }
     }
 
     @Override
-    public byte[] getUserImage(UUID id) {
-        return service.getImage(id)
+    public FileChannel getUserImage(UUID id) {
+        return service.openImage(id)
                 .orElseThrow(NotFoundException::new);
     }
 
@@ -109,4 +178,21 @@ public class UserSimpleController implements UserController {
                 }
         );
     }
+
+    /**
+     * Maps failure of the asynchronous operation caused by invalid data to {@link BadRequestException}.
+     *
+     * @param future operation result
+     * @return future completed exceptionally with {@link BadRequestException} if the operation failed because of
+     * invalid data, otherwise completed the same way as provided one
+     */
+    private static CompletableFuture<Void> badRequestOnInvalid(CompletableFuture<Void> future) {
+        return future.exceptionallyCompose(ex -> {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            return CompletableFuture.failedFuture(cause instanceof IllegalArgumentException
+                    ? new BadRequestException(cause)
+                    : cause);
+        });
+    }
+
 }
@@ -55,4 +55,9 @@ public class GetUsersResponse {
     @Singular
     private List<User> users;
 
+    /**
+     * Cursor of the next page. Present only in paged responses when there can be more users.
+     */
+    private UUID next;
+
 }
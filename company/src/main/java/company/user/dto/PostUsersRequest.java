@@ -0,0 +1,86 @@
+package company.user.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * POST users batch request. Contains users created all at once. Unlike {@link PutUserRequest} every user carries its
+ * own id.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+@EqualsAndHashCode
+public class PostUsersRequest {
+
+    /**
+     * Represents single new user in the batch.
+     */
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @ToString
+    @EqualsAndHashCode
+    public static class User {
+
+        /**
+         * Unique id of the new user.
+         */
+        private UUID id;
+
+        /**
+         * User's login.
+         */
+        private String login;
+
+        /**
+         * User's name.
+         */
+        private String name;
+
+        /**
+         * User's surname.
+         */
+        private String surname;
+
+        /**
+         * User's birthdate.
+         */
+        private LocalDate birthDate;
+
+        /**
+         * User's password.
+         */
+        @ToString.Exclude
+        private String password;
+
+        /**
+         * User's email.
+         */
+        private String email;
+
+    }
+
+    /**
+     * New users.
+     */
+    @Singular
+    private List<User> users;
+
+}
@@ -0,0 +1,38 @@
+package company.user.dto.function;
+
+import company.user.dto.PostUsersRequest;
+import company.user.entity.User;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts {@link PostUsersRequest} to list of {@link User}. Caution, some fields are not set as they should be
+ * updated by business logic.
+ */
+public class RequestToUsersFunction implements Function<PostUsersRequest, List<User>> {
+
+    /**
+     * @throws IllegalArgumentException if any user has no id or password
+     */
+    @Override
+    public List<User> apply(PostUsersRequest request) throws IllegalArgumentException {
+        return request.getUsers().stream()
+                .<User>map(user -> {
+                    if (user == null || user.getId() == null || user.getPassword() == null) {
+                        throw new IllegalArgumentException("Every user in the batch requires id and password");
+                    }
+                    return User.builder()
+                            .id(user.getId())
+                            .login(user.getLogin())
+                            .name(user.getName())
+                            .birthDate(user.getBirthDate())
+                            .surname(user.getSurname())
+                            .email(user.getEmail())
+                            .password(user.getPassword())
+                            .build();
+                })
+                .toList();
+    }
+
+}
@@ -0,0 +1,21 @@
+package company.user.dto.function;
+
+import company.user.dto.GetUsersResponse;
+import company.user.entity.User;
+
+import java.util.function.Function;
+
+/**
+ * Converts {@link User} to single entry of {@link GetUsersResponse}.
+ */
+public class UserToUsersEntryFunction implements Function<User, GetUsersResponse.User> {
+
+    @Override
+    public GetUsersResponse.User apply(User user) {
+        return GetUsersResponse.User.builder()
+                .id(user.getId())
+                .login(user.getLogin())
+                .build();
+    }
+
+}
@@ -15,10 +15,7 @@ public class UsersToResponseFunction implements Function<List<User>, GetUsersRes
     public GetUsersResponse apply(List<User> users) {
         return GetUsersResponse.builder()
                 .users(users.stream()
-                        .map(user -> GetUsersResponse.User.builder()
-                                .id(user.getId())
-                                .login(user.getLogin())
-                                .build())
+                        .map(new UserToUsersEntryFunction())
                         .toList())
                 .build();
     }
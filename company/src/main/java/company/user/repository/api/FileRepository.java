@@ -1,8 +1,11 @@
 package company.user.repository.api;
 
+import company.repository.api.Version;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +15,18 @@ public interface FileRepository {
     void delete(UUID id);
 
     Optional<byte[]> read(UUID id);
+
+    /**
+     * @param id file's id
+     * @return container (can be empty) with version of the file based on its attributes
+     */
+    Optional<Version> version(UUID id);
+
+    /**
+     * Opens file for streaming without loading it into memory. Caller is responsible for closing returned channel.
+     *
+     * @param id file's id
+     * @return container (can be empty) with read only channel of the file
+     */
+    Optional<FileChannel> open(UUID id);
 }
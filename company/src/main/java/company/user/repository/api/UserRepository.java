@@ -4,6 +4,7 @@ import company.repository.api.Repository;
 import company.user.entity.User;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -12,11 +13,21 @@ import java.util.UUID;
 public interface UserRepository extends Repository<User, UUID> {
 
     /**
-     * Seeks for single user using login.
+     * Seeks for single user using login. Logins are unique regardless of letter case.
      *
      * @param login user's login
      * @return container (can be empty) with user
      */
     Optional<User> findByLogin(String login);
 
+    /**
+     * Seeks for single user reading only selected fields. Unselected fields are left null.
+     *
+     * @param id     user's id
+     * @param fields names of selected fields
+     * @return container (can be empty) with partial user
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    Optional<User> find(UUID id, Set<String> fields) throws IllegalArgumentException;
+
 }
@@ -0,0 +1,43 @@
+package company.user.repository.cache;
+
+import company.repository.api.FieldSelection;
+import company.repository.cache.CachingRepository;
+import company.user.entity.User;
+import company.user.repository.api.UserRepository;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Caching decorator of user repository. Users found by login are not cached, so credentials are always verified
+ * against the underlying repository.
+ */
+public class UserCachingRepository extends CachingRepository<User, UUID> implements UserRepository {
+
+    /**
+     * Underlying repository.
+     */
+    private final UserRepository users;
+
+    /**
+     * @param delegate    underlying repository
+     * @param maximumSize maximal number of cached users
+     */
+    public UserCachingRepository(UserRepository delegate, int maximumSize) {
+        super(delegate, User::getId, maximumSize);
+        this.users = delegate;
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return users.findByLogin(login);
+    }
+
+    @Override
+    public Optional<User> find(UUID id, Set<String> fields) throws IllegalArgumentException {
+        FieldSelection.requireFields(fields, FieldSelection.USER_FIELDS);
+        return find(id).map(user -> FieldSelection.project(user, fields));
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Caching decorator of users repository.
+ */
+package company.user.repository.cache;
@@ -0,0 +1,222 @@
+package company.user.repository.jdbc;
+
+import company.repository.api.FieldSelection;
+import company.repository.api.Page;
+import company.repository.api.Version;
+import company.repository.jdbc.JdbcSupport;
+import company.user.entity.User;
+import company.user.repository.api.UserRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repository for User entity backed by relational database. Login uniqueness regardless of letter case is guarded by
+ * unique column with normalised login. Roles are stored as comma separated list. Repositories should be used in
+ * business layer (e.g.: in services).
+ */
+public class UserJdbcRepository implements UserRepository {
+
+    /**
+     * Name of the versioned collection.
+     */
+    public static final String COLLECTION = "users";
+
+    /**
+     * Selected columns.
+     */
+    private static final String COLUMNS = "id, login, name, surname, birth_date, password, email, roles";
+
+    /**
+     * Columns of projectable fields.
+     */
+    private static final Map<String, String> FIELD_COLUMNS = Map.of(
+            "id", "id",
+            "login", "login",
+            "name", "name",
+            "surname", "surname",
+            "birthDate", "birth_date",
+            "email", "email"
+    );
+
+    /**
+     * Common JDBC operations.
+     */
+    private final JdbcSupport jdbc;
+
+    /**
+     * @param jdbc common JDBC operations
+     */
+    public UserJdbcRepository(JdbcSupport jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Optional<User> find(UUID id) {
+        return jdbc.queryOne("SELECT " + COLUMNS + " FROM users WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                UserJdbcRepository::map);
+    }
+
+    @Override
+    public Optional<User> find(UUID id, Set<String> fields) {
+        FieldSelection.requireFields(fields, FieldSelection.USER_FIELDS);
+        String columns = Stream.concat(Stream.of("id"), fields.stream().filter(field -> !field.equals("id")))
+                .map(FIELD_COLUMNS::get)
+                .collect(Collectors.joining(", "));//id is always selected, so column list is never empty
+        return jdbc.queryOne("SELECT " + columns + " FROM users WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                resultSet -> User.builder()
+                        .id(fields.contains("id") ? JdbcSupport.getUuid(resultSet, "id") : null)
+                        .login(fields.contains("login") ? resultSet.getString("login") : null)
+                        .name(fields.contains("name") ? resultSet.getString("name") : null)
+                        .surname(fields.contains("surname") ? resultSet.getString("surname") : null)
+                        .birthDate(fields.contains("birthDate") ? resultSet.getObject("birth_date", LocalDate.class) : null)
+                        .email(fields.contains("email") ? resultSet.getString("email") : null)
+                        .build());
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return jdbc.queryOne("SELECT " + COLUMNS + " FROM users WHERE login_normalised = ?",
+                statement -> statement.setString(1, normalizeLogin(login)),
+                UserJdbcRepository::map);
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return jdbc.queryOne("SELECT version, modified FROM users WHERE id = ?",
+                statement -> JdbcSupport.setUuid(statement, 1, id),
+                JdbcSupport::version);
+    }
+
+    @Override
+    public Version version() {
+        return jdbc.version(COLLECTION);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users", statement -> {
+        }, UserJdbcRepository::map);
+    }
+
+    @Override
+    public Page<User, UUID> findPage(UUID cursor, int limit) {
+        List<User> users = jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY",
+                statement -> {
+                    statement.setString(1, cursor != null ? cursor.toString() : "");
+                    statement.setInt(2, limit);
+                },
+                UserJdbcRepository::map);
+        return new Page<>(users, users.size() == limit ? users.get(users.size() - 1).getId() : null);
+    }
+
+    @Override
+    public Stream<User> stream() {
+        return jdbc.stream("SELECT " + COLUMNS + " FROM users", statement -> {
+        }, UserJdbcRepository::map);
+    }
+
+    @Override
+    public void create(User entity) {
+        createAll(List.of(entity));
+    }
+
+    @Override
+    public void createAll(Collection<User> entities) {
+        jdbc.batch("INSERT INTO users (" + COLUMNS + ", login_normalised, version, modified) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NEXT VALUE FOR version_sequence, CURRENT_TIMESTAMP)",
+                entities, UserJdbcRepository::bind, COLLECTION);
+    }
+
+    @Override
+    public void delete(User entity) {
+        if (jdbc.update("DELETE FROM users WHERE id = ?", statement -> JdbcSupport.setUuid(statement, 1, entity.getId()),
+                COLLECTION) == 0) {
+            throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    @Override
+    public void update(User entity) {
+        if (jdbc.update("UPDATE users SET login = ?, name = ?, surname = ?, birth_date = ?, password = ?, email = ?, "
+                + "roles = ?, login_normalised = ?, version = NEXT VALUE FOR version_sequence, modified = CURRENT_TIMESTAMP "
+                + "WHERE id = ?", statement -> {
+            bindValues(statement, 1, entity);
+            JdbcSupport.setUuid(statement, 9, entity.getId());
+        }, COLLECTION) == 0) {
+            throw new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(entity.getId()));
+        }
+    }
+
+    /**
+     * @param statement insert statement
+     * @param entity    inserted user
+     * @throws SQLException if parameter can not be set
+     */
+    private static void bind(PreparedStatement statement, User entity) throws SQLException {
+        JdbcSupport.setUuid(statement, 1, entity.getId());
+        bindValues(statement, 2, entity);
+    }
+
+    /**
+     * Binds all columns except id in order: login, name, surname, birth date, password, email, roles and normalised
+     * login.
+     *
+     * @param statement statement
+     * @param first     index of the first parameter
+     * @param entity    bound user
+     * @throws SQLException if parameter can not be set
+     */
+    private static void bindValues(PreparedStatement statement, int first, User entity) throws SQLException {
+        statement.setString(first, entity.getLogin());
+        statement.setString(first + 1, entity.getName());
+        statement.setString(first + 2, entity.getSurname());
+        statement.setObject(first + 3, entity.getBirthDate());
+        statement.setString(first + 4, entity.getPassword());
+        statement.setString(first + 5, entity.getEmail());
+        statement.setString(first + 6, entity.getRoles() != null ? String.join(",", entity.getRoles()) : null);
+        statement.setString(first + 7, normalizeLogin(entity.getLogin()));
+    }
+
+    /**
+     * @param resultSet result set positioned at the row with {@link #COLUMNS}
+     * @return mapped user
+     * @throws SQLException if column can not be read
+     */
+    private static User map(ResultSet resultSet) throws SQLException {
+        String roles = resultSet.getString("roles");
+        return User.builder()
+                .id(JdbcSupport.getUuid(resultSet, "id"))
+                .login(resultSet.getString("login"))
+                .name(resultSet.getString("name"))
+                .surname(resultSet.getString("surname"))
+                .birthDate(resultSet.getObject("birth_date", LocalDate.class))
+                .password(resultSet.getString("password"))
+                .email(resultSet.getString("email"))
+                .roles(roles != null ? Arrays.asList(roles.isEmpty() ? new String[0] : roles.split(",")) : null)
+                .build();
+    }
+
+    /**
+     * @param login user's login
+     * @return login in form used as unique index key
+     */
+    private static String normalizeLogin(String login) {
+        return login != null ? login.toLowerCase(Locale.ROOT) : null;
+    }
+
+}
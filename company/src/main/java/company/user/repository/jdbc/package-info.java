@@ -0,0 +1,4 @@
+/**
+ * Users related repositories implementations backed by relational database accessed with JDBC.
+ */
+package company.user.repository.jdbc;
@@ -1,11 +1,18 @@
 package company.user.repository.memory;
 
+import company.repository.api.Version;
 import company.user.repository.api.FileRepository;
+import lombok.extern.java.Log;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,6 +20,7 @@ import java.util.UUID;
  * A repository implementation for storing and managing PNG files.
  * Files are stored in directories named after UUIDs, and the files themselves are named "image.png".
  */
+@Log
 public class SimpleFileRepository implements FileRepository {
 
     // Base directory where UUID folders and PNG files will be stored
@@ -29,7 +37,9 @@ public class SimpleFileRepository implements FileRepository {
 
     /**
      * Saves a PNG file to the repository under the given UUID.
-     * Creates a directory named after the UUID if it doesn't exist, and stores the file as "image.png".
+     * Creates a directory named after the UUID if it doesn't exist, and stores the file as "image.png". The file is
+     * written to a temporary file first and then atomically moved in place, so channels opened by readers always see
+     * complete, unchanging content.
      *
      * @param id   The UUID used as the folder name where the file will be stored.
      * @param file The InputStream of the PNG file to be saved.
@@ -45,9 +55,15 @@ public class SimpleFileRepository implements FileRepository {
             // Define the file path for the PNG file
             Path filePath = directoryPath.resolve("image.png");
             // Save the file to disk
-            System.out.println("File saved: " + filePath.toAbsolutePath());
-            try (OutputStream outputStream = Files.newOutputStream(filePath)) {
-                file.transferTo(outputStream);
+            Path tempPath = Files.createTempFile(directoryPath, "image", ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+                    file.transferTo(outputStream);
+                }
+                Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                log.fine("File saved: %s".formatted(filePath.toAbsolutePath()));
+            } finally {
+                Files.deleteIfExists(tempPath);
             }
         } catch (IOException e) {
             throw new IOException("Error while saving the file", e);
@@ -90,7 +106,7 @@ public class SimpleFileRepository implements FileRepository {
         try {
             // Check if the file exists, then return the InputStream
             if (Files.exists(filePath)) {
-                return Optional.of(Files.newInputStream(filePath).readAllBytes());
+                return Optional.of(Files.readAllBytes(filePath));
             } else {
                 return Optional.empty();
             }
@@ -98,4 +114,48 @@ public class SimpleFileRepository implements FileRepository {
             throw new RuntimeException("Error while reading the file", e);
         }
     }
+
+    /**
+     * Reads version of the PNG file associated with the given UUID. Version is based on file size and last modification
+     * time, so no file content is read.
+     *
+     * @param id The UUID representing the folder where the file is stored.
+     * @return Version of the file "image.png".
+     * @throws RuntimeException If there is an error while reading file attributes.
+     */
+    @Override
+    public Optional<Version> version(UUID id) {
+        Path filePath = Paths.get(baseDirectory, id.toString(), "image.png");
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            return Optional.of(new Version(
+                    Long.toHexString(attributes.size()) + "-" + Long.toHexString(modified),
+                    Instant.ofEpochMilli(modified)
+            ));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading the file", e);
+        }
+    }
+
+    /**
+     * Opens the PNG file associated with the given UUID for streaming.
+     *
+     * @param id The UUID representing the folder where the file is stored.
+     * @return A read only channel of the file "image.png", to be closed by the caller.
+     * @throws RuntimeException If there is an error while opening the file.
+     */
+    @Override
+    public Optional<FileChannel> open(UUID id) {
+        Path filePath = Paths.get(baseDirectory, id.toString(), "image.png");
+        try {
+            return Optional.of(FileChannel.open(filePath));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading the file", e);
+        }
+    }
 }
@@ -1,12 +1,17 @@
 package company.user.repository.memory;
 
 import company.datastore.component.DataStore;
+import company.repository.api.Page;
+import company.repository.api.Version;
 import company.user.entity.User;
 import company.user.repository.api.UserRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for User entity. Repositories should be used in business layer (e.g.: in services).
@@ -27,9 +32,22 @@ public class UserInMemoryRepository implements UserRepository {
 
     @Override
     public Optional<User> find(UUID id) {
-        return store.findAllUsers().stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst();
+        return store.findUser(id);
+    }
+
+    @Override
+    public Optional<User> find(UUID id, Set<String> fields) {
+        return store.findUser(id, fields);
+    }
+
+    @Override
+    public Optional<Version> findVersion(UUID id) {
+        return store.findVersion(id);
+    }
+
+    @Override
+    public Version version() {
+        return store.usersVersion();
     }
 
     @Override
@@ -37,11 +55,31 @@ public class UserInMemoryRepository implements UserRepository {
         return store.findAllUsers();
     }
 
+    @Override
+    public Page<User, UUID> findPage(UUID cursor, int limit) {
+        return store.findUsersPage(cursor, limit);
+    }
+
+    @Override
+    public Stream<User> stream() {
+        return store.streamAllUsers();
+    }
+
+    @Override
+    public Stream<User> streamSnapshot() {
+        return store.streamUsersSnapshot();
+    }
+
     @Override
     public void create(User entity) {
         store.createUser(entity);
     }
 
+    @Override
+    public void createAll(Collection<User> entities) {
+        store.createUsers(entities);
+    }
+
     @Override
     public void delete(User entity) {
         store.deleteUser(entity.getId());
@@ -54,9 +92,7 @@ public class UserInMemoryRepository implements UserRepository {
 
     @Override
     public Optional<User> findByLogin(String login) {
-        return store.findAllUsers().stream()
-                .filter(user -> user.getLogin().equals(login))
-                .findFirst();
+        return store.findUserByLogin(login);
     }
 
 }
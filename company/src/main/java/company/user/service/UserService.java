@@ -1,20 +1,32 @@
 package company.user.service;
 
-import company.crypto.component.Pbkdf2PasswordHash;
+import company.crypto.component.PasswordHashingService;
+import company.crypto.component.TokenStore;
 import company.device.entity.Device;
+import company.repository.api.Page;
+import company.repository.api.Version;
 import company.user.entity.User;
 import company.user.repository.api.FileRepository;
 import company.user.repository.api.UserRepository;
+import lombok.extern.java.Log;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.stream.Stream;
 
 /**
  * Service layer for all business actions regarding user entity.
  */
+@Log
 public class UserService {
 
     /**
@@ -28,18 +40,26 @@ public class UserService {
     private final FileRepository fileRepository;
 
     /**
-     * Hash mechanism used for storing users' passwords.
+     * Pool hashing users' passwords.
      */
-    private final Pbkdf2PasswordHash passwordHash;
+    private final PasswordHashingService passwordHash;
+
+    /**
+     * Session tokens of authenticated users bound to their ids.
+     */
+    private final TokenStore<UUID> sessions;
 
     /**
      * @param repository   repository for device entity
-     * @param passwordHash hash mechanism used for storing users' passwords
+     * @param passwordHash pool hashing users' passwords
+     * @param sessions     session tokens of authenticated users
      */
-    public UserService(UserRepository repository, FileRepository fileRepository, Pbkdf2PasswordHash passwordHash) {
+    public UserService(UserRepository repository, FileRepository fileRepository, PasswordHashingService passwordHash,
+                       TokenStore<UUID> sessions) {
         this.repository = repository;
         this.fileRepository = fileRepository;
         this.passwordHash = passwordHash;
+        this.sessions = sessions;
     }
 
     /**
@@ -50,6 +70,39 @@ public class UserService {
         return repository.find(id);
     }
 
+    /**
+     * @param id     user's id
+     * @param fields names of selected fields
+     * @return container (can be empty) with user with only selected fields read
+     * @throws IllegalArgumentException if any of fields is not supported
+     */
+    public Optional<User> find(UUID id, Set<String> fields) {
+        return repository.find(id, fields);
+    }
+
+    /**
+     * @param id user's id
+     * @return container (can be empty) with user's version
+     */
+    public Optional<Version> findVersion(UUID id) {
+        return repository.findVersion(id);
+    }
+
+    /**
+     * @return version of all users
+     */
+    public Version findAllVersion() {
+        return repository.version();
+    }
+
+    /**
+     * @param id user's id
+     * @return container (can be empty) with version of user's image
+     */
+    public Optional<Version> findImageVersion(UUID id) {
+        return fileRepository.version(id);
+    }
+
     /**
      * @return container (can be empty) with users
      */
@@ -57,6 +110,29 @@ public class UserService {
         return repository.findAll();
     }
 
+    /**
+     * @param cursor id of the last user on previous page or null for the first page
+     * @param limit  maximal number of users on the page
+     * @return page of users
+     */
+    public Page<User, UUID> findPage(UUID cursor, int limit) {
+        return repository.findPage(cursor, limit);
+    }
+
+    /**
+     * @return lazy stream of all available users
+     */
+    public Stream<User> streamAll() {
+        return repository.stream();
+    }
+
+    /**
+     * @return lazy stream of all users from the moment of the call, to be closed by the caller
+     */
+    public Stream<User> streamSnapshot() {
+        return repository.streamSnapshot();
+    }
+
 
     /**
      * Seeks for single user using login and password. Can be used in authentication module.
@@ -69,25 +145,120 @@ public class UserService {
     }
 
     /**
-     * Saves new user. Password is hashed using configured hash algorithm.
+     * Saves new user. Password is hashed using configured hash algorithm on the hashing pool, the user is saved when
+     * the hash is ready.
      *
      * @param user new user to be saved
+     * @return future completed when the user is saved, completed exceptionally with {@link IllegalArgumentException}
+     * if the user is not unique
+     * @throws RejectedExecutionException if the hashing pool is overloaded
      */
-    public void create(User user) {
-        user.setPassword(passwordHash.generate(user.getPassword().toCharArray()));
-        repository.create(user);
+    public CompletableFuture<Void> create(User user) throws RejectedExecutionException {
+        return passwordHash.generate(user.getPassword().toCharArray())
+                .thenAccept(hash -> {
+                    user.setPassword(hash);
+                    repository.create(user);
+                });
     }
 
     /**
+     * Saves new users all at once, either all are saved or none. Passwords are hashed in parallel on the hashing pool
+     * before the users are saved.
+     *
+     * @param users new users to be saved
+     * @return future completed when the users are saved, completed exceptionally with
+     * {@link IllegalArgumentException} if any user is not unique
+     * @throws RejectedExecutionException if the hashing pool is overloaded
+     */
+    public CompletableFuture<Void> createAll(Collection<User> users) throws RejectedExecutionException {
+        List<User> list = List.copyOf(users);
+        return passwordHash.generateAll(list.stream().map(user -> user.getPassword().toCharArray()).toList())
+                .thenAccept(hashes -> {
+                    for (int i = 0; i < list.size(); i++) {
+                        list.get(i).setPassword(hashes.get(i));
+                    }
+                    repository.createAll(list);
+                });
+    }
+
+    /**
+     * Verifies user's password. When the password is correct but stored hash is outdated (legacy format or lower
+     * cost than currently configured) the password is rehashed in background.
+     *
      * @param login    user's login
      * @param password user's password
-     * @return true if provided login and password are correct
+     * @return future completed with true if provided login and password are correct
+     * @throws RejectedExecutionException if the hashing pool is overloaded
      */
-    public boolean verify(String login, String password) {
-        return find(login)
-                .map(user -> passwordHash.verify(password.toCharArray(), user.getPassword()))
-                .orElse(false);
+    public CompletableFuture<Boolean> verify(String login, String password) throws RejectedExecutionException {
+        return authenticate(login, password).thenApply(Optional::isPresent);
     }
+
+    /**
+     * Verifies user's password like {@link #verify(String, String)}.
+     *
+     * @param login    user's login
+     * @param password user's password
+     * @return future completed with container (empty if login or password is not correct) with authenticated user
+     * @throws RejectedExecutionException if the hashing pool is overloaded
+     */
+    public CompletableFuture<Optional<User>> authenticate(String login, String password)
+            throws RejectedExecutionException {
+        Optional<User> found = find(login);
+        if (found.isEmpty()) {//hashed anyway, so response time does not reveal existing logins
+            return passwordHash.verifyDummy(password.toCharArray()).thenApply(ignored -> Optional.empty());
+        }
+        User user = found.get();
+        return passwordHash.verify(password.toCharArray(), user.getPassword())
+                .thenApply(valid -> {
+                    if (valid && passwordHash.needsRehash(user.getPassword())) {
+                        rehash(user, password);
+                    }
+                    return valid ? found : Optional.empty();
+                });
+    }
+
+    /**
+     * Opens session of authenticated user, so next requests can be authenticated with the token instead of hashing
+     * the password again.
+     *
+     * @param user authenticated user
+     * @return session token
+     */
+    public String openSession(User user) {
+        return sessions.issue(user.getId());
+    }
+
+    /**
+     * @param token session token
+     * @return container (can be empty) with user of the valid session
+     */
+    public Optional<User> findBySession(String token) {
+        return sessions.find(token).flatMap(repository::find);
+    }
+
+    /**
+     * Replaces outdated hash of verified password. Skipped when the hashing pool is busy (next login retries) or when
+     * the password was changed in the meantime.
+     *
+     * @param user     user with outdated hash
+     * @param password verified password
+     */
+    private void rehash(User user, String password) {
+        try {
+            passwordHash.generate(password.toCharArray())
+                    .thenAccept(hash -> repository.find(user.getId())
+                            .filter(current -> current.getPassword().equals(user.getPassword()))
+                            .ifPresent(current -> repository.update(current.toBuilder().password(hash).build())))
+                    .exceptionally(ex -> {
+                        log.log(Level.WARNING, "Unable to rehash password of %s".formatted(user.getLogin()), ex);
+                        return null;
+                    });
+        } catch (RejectedExecutionException ex) {
+            log.fine("Rehash of %s password postponed, hashing pool is busy".formatted(user.getLogin()));
+        }
+    }
+
     /**
      * Updates existing device.
      *
@@ -101,9 +272,12 @@ public class UserService {
      * Deletes existing user.
      *
      * @param id existing device's id to be deleted
+     * @throws IllegalArgumentException if user with provided id does not exist
      */
-    public void delete(UUID id) {
-        repository.delete(repository.find(id).orElseThrow());
+    public void delete(UUID id) throws IllegalArgumentException {
+        repository.delete(repository.find(id).orElseThrow(
+                () -> new IllegalArgumentException("The user with id \"%s\" does not exist".formatted(id))));
+        sessions.revokeAll(id);
         fileRepository.delete(id);
     }
 
@@ -132,6 +306,16 @@ public class UserService {
         return fileRepository.read(id);
     }
 
+    /**
+     * Opens image of the user for streaming.
+     *
+     * @param id user's id
+     * @return container (can be empty) with channel of user's image, to be closed by the caller
+     */
+    public Optional<FileChannel> openImage(UUID id) {
+        return fileRepository.open(id);
+    }
+
     /**
      * Deletes image of the user.
      *
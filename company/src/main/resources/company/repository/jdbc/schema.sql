@@ -0,0 +1,48 @@
+-- Schema used by JDBC repositories. Statements are idempotent, so the script is run on every start.
+-- Ids are stored as canonical UUID strings.
+
+CREATE SEQUENCE IF NOT EXISTS version_sequence;
+
+CREATE TABLE IF NOT EXISTS collection_versions (
+    name     VARCHAR(32) PRIMARY KEY,
+    version  BIGINT NOT NULL,
+    modified TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS brands (
+    id                    CHAR(36) PRIMARY KEY,
+    name                  VARCHAR(255),
+    date_of_establishment TIMESTAMP WITH TIME ZONE,
+    version               BIGINT NOT NULL,
+    modified              TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id               CHAR(36) PRIMARY KEY,
+    login            VARCHAR(255),
+    login_normalised VARCHAR(255) UNIQUE,
+    name             VARCHAR(255),
+    surname          VARCHAR(255),
+    birth_date       DATE,
+    password         VARCHAR(1024),
+    email            VARCHAR(255),
+    roles            VARCHAR(1024),
+    version          BIGINT NOT NULL,
+    modified         TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS devices (
+    id          CHAR(36) PRIMARY KEY,
+    name        VARCHAR(255),
+    price       INTEGER,
+    mass        INTEGER,
+    device_type VARCHAR(32),
+    brand_id    CHAR(36) REFERENCES brands (id),
+    user_id     CHAR(36) REFERENCES users (id) ON DELETE SET NULL,
+    version     BIGINT NOT NULL,
+    modified    TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS devices_by_brand ON devices (brand_id, id);
+
+CREATE INDEX IF NOT EXISTS devices_by_user ON devices (user_id, id);
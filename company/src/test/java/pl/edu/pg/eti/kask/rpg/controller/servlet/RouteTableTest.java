@@ -0,0 +1,124 @@
+package company.controller.servlet;
+
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableTest {
+
+    private final List<String> handled = new ArrayList<>();
+
+    private RouteTable routes;
+
+    @BeforeEach
+    void setUp() {
+        routes = new RouteTable()
+                .add("GET", "/devices", (request, response, id) -> handled.add("devices"))
+                .add("GET", "/devices/summary", (request, response, id) -> handled.add("summary"))
+                .add("GET", "/devices/{id}", (request, response, id) -> handled.add("device " + id))
+                .add("PUT", "/devices/{id}/image", (request, response, id) -> handled.add("image " + id));
+    }
+
+    @Test
+    void prefersLiteralSegmentOverId() throws ServletException, IOException {
+        assertThat(dispatch("GET", "/devices/summary")).isTrue();
+
+        assertThat(handled).containsExactly("summary");
+    }
+
+    @Test
+    void extractsIdSegment() throws ServletException, IOException {
+        UUID id = UUID.randomUUID();
+
+        assertThat(dispatch("GET", "/devices/" + id)).isTrue();
+        assertThat(dispatch("PUT", "/devices/" + id + "/image")).isTrue();
+
+        assertThat(handled).containsExactly("device " + id, "image " + id);
+    }
+
+    @Test
+    void ignoresSingleTrailingSlash() throws ServletException, IOException {
+        UUID id = UUID.randomUUID();
+
+        assertThat(dispatch("GET", "/devices/")).isTrue();
+        assertThat(dispatch("GET", "/devices/" + id + "/")).isTrue();
+        assertThat(dispatch("GET", "/devices//")).isFalse();
+
+        assertThat(handled).containsExactly("devices", "device " + id);
+    }
+
+    @Test
+    void rejectsUnknownRoutes() throws ServletException, IOException {
+        UUID id = UUID.randomUUID();
+
+        assertThat(dispatch("DELETE", "/devices")).isFalse();
+        assertThat(dispatch("GET", "/devices/" + id + "/image")).isFalse();
+        assertThat(dispatch("GET", "/devices/not-an-id")).isFalse();
+        assertThat(dispatch("GET", "/devices//" + id)).isFalse();
+        assertThat(dispatch("GET", "/users")).isFalse();
+        assertThat(dispatch("GET", "")).isFalse();
+
+        assertThat(handled).isEmpty();
+    }
+
+    @Test
+    void rejectsAmbiguousTemplates() {
+        assertThatThrownBy(() -> routes.add("GET", "/devices/{id}", (request, response, id) -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> routes.add("GET", "/users/{id}/devices/{id}", (request, response, id) -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parsesCanonicalUuidLikeJdk() {
+        for (int i = 0; i < 1000; i++) {
+            String value = UUID.randomUUID().toString();
+
+            assertThat(parse(value)).isEqualTo(UUID.fromString(value));
+            assertThat(parse(value.toUpperCase(Locale.ROOT))).isEqualTo(UUID.fromString(value));
+        }
+        assertThat(parse("ffffffff-ffff-ffff-ffff-ffffffffffff")).isEqualTo(new UUID(-1, -1));
+        assertThat(parse("00000000-0000-0000-0000-000000000000")).isEqualTo(new UUID(0, 0));
+    }
+
+    @Test
+    void rejectsNonCanonicalUuid() {
+        String value = "123e4567-e89b-12d3-a456-426614174000";
+
+        assertThat(parse(value.substring(1))).isNull();
+        assertThat(parse(value + "0")).isNull();
+        assertThat(parse(value + "/")).isNull();
+        assertThat(parse("123e4567e-89b-12d3-a456-426614174000")).isNull();
+        assertThat(parse("123e4567-e89b-12d3-a456-4266141740-0")).isNull();
+        assertThat(parse("123e4567-e89b-12d3-a456+426614174000")).isNull();
+        assertThat(parse("123e4567-e89b-12d3-a456-42661417400g")).isNull();
+        assertThat(parse("1-1-1-1-1")).isNull();//accepted by UUID.fromString, but not canonical
+    }
+
+    @Test
+    void parsesUuidInsidePath() {
+        UUID id = UUID.randomUUID();
+        String path = "/devices/" + id + "/image";
+
+        assertThat(RouteTable.parseUuid(path, 9, 45)).isEqualTo(id);
+        assertThat(RouteTable.parseUuid(path, 9, 46)).isNull();
+    }
+
+    private boolean dispatch(String method, String path) throws ServletException, IOException {
+        return routes.dispatch(method, path, null, null);
+    }
+
+    private static UUID parse(String value) {
+        return RouteTable.parseUuid(value, 0, value.length());
+    }
+
+}
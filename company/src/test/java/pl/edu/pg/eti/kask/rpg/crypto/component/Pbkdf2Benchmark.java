@@ -0,0 +1,65 @@
+package company.crypto.component;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares key derivation of the secret key factory with {@link Pbkdf2HmacSha256}. Run with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=company.crypto.component.Pbkdf2Benchmark</code>
+ * (add <code>-prof gc</code> to JMH options to compare allocations).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class Pbkdf2Benchmark {
+
+    @Param({"1000", "10000"})
+    private int iterations;
+
+    private final char[] password = "adminadmin".toCharArray();
+
+    private final byte[] salt = new byte[16];
+
+    private final byte[] result = new byte[32];
+
+    private final Pbkdf2HmacSha256 pbkdf2 = new Pbkdf2HmacSha256();
+
+    @Benchmark
+    public byte[] secretKeyFactory() throws GeneralSecurityException {
+        return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec(password, salt, iterations, 256))
+                .getEncoded();
+    }
+
+    @Benchmark
+    public byte[] hmacState() {
+        pbkdf2.derive(password, salt, iterations, result);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Pbkdf2Benchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,42 @@
+package company.crypto.component;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Pbkdf2HmacSha256Test {
+
+    private final Pbkdf2HmacSha256 pbkdf2 = new Pbkdf2HmacSha256();
+
+    @Test
+    void derivesSameKeyAsSecretKeyFactory() throws Exception {
+        byte[] salt = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        for (String password : List.of("", "a", "adminadmin", "zażółć gęślą jaźń", "пароль", "密码🔑",
+                "lone\uD800surrogate", "password longer than the sixty four bytes block of the sha256 hash function")) {
+            for (int length : new int[]{16, 32, 50, 64}) {
+                assertThat(pbkdf2.derive(password.toCharArray(), salt, 1000, length))
+                        .as("%s (%d bytes)", password, length)
+                        .isEqualTo(reference(password.toCharArray(), salt, 1000, length));
+            }
+        }
+    }
+
+    @Test
+    void derivesRfc7914TestVector() {
+        byte[] key = pbkdf2.derive("passwd".toCharArray(), "salt".getBytes(StandardCharsets.US_ASCII), 1, 64);
+        assertThat(key).startsWith(0x55, 0xac, 0x04, 0x6e, 0x56, 0xe3, 0x08, 0x9f, 0xec, 0x16, 0x91, 0xc2, 0x25, 0x44,
+                0xb6, 0x05);
+    }
+
+    private static byte[] reference(char[] password, byte[] salt, int iterations, int length) throws Exception {
+        return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec(password, salt, iterations, length * 8))
+                .getEncoded();
+    }
+
+}
@@ -0,0 +1,55 @@
+package company.crypto.component;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Pbkdf2PasswordHashTest {
+
+    @Test
+    void generatesSelfDescribingHash() {
+        Pbkdf2PasswordHash passwordHash = new Pbkdf2PasswordHash(12000);
+
+        String hash = passwordHash.generate("useruser".toCharArray());
+
+        assertThat(hash).matches("\\$pbkdf2-sha256\\$i=12000\\$[A-Za-z0-9+/]{22}\\$[A-Za-z0-9+/]{43}");
+        assertThat(passwordHash.verify("useruser".toCharArray(), hash)).isTrue();
+        assertThat(passwordHash.verify("adminadmin".toCharArray(), hash)).isFalse();
+        assertThat(passwordHash.needsRehash(hash)).isFalse();
+        assertThat(new Pbkdf2PasswordHash(13000).verify("useruser".toCharArray(), hash)).isTrue();
+        assertThat(new Pbkdf2PasswordHash(13000).needsRehash(hash)).isTrue();
+    }
+
+    @Test
+    void verifiesLegacyHash() throws Exception {
+        byte[] saltPlusHash = new byte[48];
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec("useruser".toCharArray(), new byte[16], 10000, 256))
+                .getEncoded();
+        System.arraycopy(hash, 0, saltPlusHash, 16, 32);
+        String legacy = Base64.getEncoder().encodeToString(saltPlusHash);
+        Pbkdf2PasswordHash passwordHash = new Pbkdf2PasswordHash();
+
+        assertThat(passwordHash.verify("useruser".toCharArray(), legacy)).isTrue();
+        assertThat(passwordHash.verify("adminadmin".toCharArray(), legacy)).isFalse();
+        assertThat(passwordHash.needsRehash(legacy)).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedHash() {
+        Pbkdf2PasswordHash passwordHash = new Pbkdf2PasswordHash();
+
+        assertThatThrownBy(() -> passwordHash.verify("any".toCharArray(), "$pbkdf2-sha256$i=1$c2FsdA$"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> passwordHash.verify("any".toCharArray(), "$pbkdf2-sha256$i=x$c2FsdA$c2FsdA"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> passwordHash.verify("any".toCharArray(), "c2FsdA=="))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,77 @@
+package company.crypto.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenStoreTest {
+
+    @Test
+    void findsIssuedToken() {
+        TokenStore<String> store = new TokenStore<>(Duration.ofMinutes(1), 10, 10);
+
+        String token = store.issue("kevin");
+
+        assertThat(token).matches("[A-Za-z0-9_-]{43}");
+        assertThat(store.find(token)).contains("kevin");
+        assertThat(store.find(token + "x")).isEmpty();
+    }
+
+    @Test
+    void expiresToken() throws InterruptedException {
+        TokenStore<String> store = new TokenStore<>(Duration.ofMillis(20), 10, 10);
+        String token = store.issue("kevin");
+
+        Thread.sleep(50);
+
+        assertThat(store.find(token)).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void dropsOldestTokensOverCapacity() {
+        TokenStore<Integer> store = new TokenStore<>(Duration.ofMinutes(1), 3, 10);
+        String first = store.issue(1);
+        store.issue(2);
+        store.issue(3);
+
+        String fourth = store.issue(4);
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.find(first)).isEmpty();
+        assertThat(store.find(fourth)).contains(4);
+    }
+
+    @Test
+    void revokesTokensOfValue() {
+        TokenStore<String> store = new TokenStore<>(Duration.ofMinutes(1), 10, 10);
+        String kevin = store.issue("kevin");
+        String kevinAgain = store.issue("kevin");
+        String alice = store.issue("alice");
+
+        store.revokeAll("kevin");
+
+        assertThat(store.find(kevin)).isEmpty();
+        assertThat(store.find(kevinAgain)).isEmpty();
+        assertThat(store.find(alice)).contains("alice");
+    }
+
+    @Test
+    void dropsOldestTokenOfValueOverLimit() {
+        TokenStore<String> store = new TokenStore<>(Duration.ofMinutes(1), 10, 2);
+        String alice = store.issue("alice");
+        String first = store.issue("kevin");
+        String second = store.issue("kevin");
+
+        String third = store.issue("kevin");
+
+        assertThat(store.find(first)).isEmpty();
+        assertThat(store.find(second)).contains("kevin");
+        assertThat(store.find(third)).contains("kevin");
+        assertThat(store.find(alice)).contains("alice");
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+}
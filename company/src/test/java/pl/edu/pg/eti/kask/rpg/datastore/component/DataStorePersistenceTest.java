@@ -0,0 +1,112 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.serialization.component.CloningUtility;
+import company.user.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataStorePersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversChangesAfterCheckpointWithoutClosing() throws IOException {
+        DataStore store = newStore();
+        DataStorePersistence persistence = open(store);
+        Brand brand = brand();
+        User kevin = user("kevin");
+        store.createBrand(brand);
+        store.createUser(kevin);
+        store.createDevice(device(brand, kevin));
+        persistence.checkpoint();
+        User stuart = user("stuart");
+        store.createUser(stuart);
+        store.deleteUser(kevin.getId());
+
+        DataStore recovered = newStore();
+        try (DataStorePersistence ignored = open(recovered)) {
+            assertThat(recovered.findBrand(brand.getId())).isPresent();
+            assertThat(recovered.findUser(kevin.getId())).isEmpty();
+            assertThat(recovered.findUser(stuart.getId())).isPresent();
+            assertThat(recovered.findAllDevices()).singleElement()
+                    .satisfies(device -> assertThat(device.getUser()).isNull());
+        }
+    }
+
+    @Test
+    void restartsFromFinalSnapshot() throws IOException {
+        DataStore store = newStore();
+        User kevin = user("kevin");
+        try (DataStorePersistence ignored = open(store)) {
+            store.createUser(kevin);
+        }
+
+        DataStore restarted = newStore();
+        try (DataStorePersistence ignored = open(restarted)) {
+            assertThat(restarted.findUser(kevin.getId())).isPresent();
+            assertThat(restarted.findUserByLogin("KEVIN")).isPresent();
+        }
+    }
+
+    @Test
+    void keepsDeviceLoggedAfterOwnerDeletion() throws IOException {
+        Brand brand = brand();
+        User kevin = user("kevin");
+        Device device = device(brand, kevin);
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            log.append(WriteAheadLog.Operation.CREATE_BRAND, WriteAheadLog.serialize(brand)).join();
+            log.append(WriteAheadLog.Operation.CREATE_USER, WriteAheadLog.serialize(kevin)).join();
+            log.append(WriteAheadLog.Operation.DELETE_USER, WriteAheadLog.serialize(kevin.getId())).join();
+            log.append(WriteAheadLog.Operation.CREATE_DEVICE, WriteAheadLog.serialize(device)).join();
+        }
+
+        DataStore store = newStore();
+        try (DataStorePersistence ignored = open(store)) {
+            assertThat(store.findDevice(device.getId())).hasValueSatisfying(recovered -> {
+                assertThat(recovered.getUser()).isNull();
+                assertThat(recovered.getBrand().getId()).isEqualTo(brand.getId());
+            });
+            assertThat(store.findAllDevicesByUser(kevin.getId())).isEmpty();
+        }
+    }
+
+    private static DataStore newStore() {
+        return new DataStore(EntityCopyStrategies.register(new CloningUtility()));
+    }
+
+    private DataStorePersistence open(DataStore store) throws IOException {
+        DataStorePersistence persistence = new DataStorePersistence(store, directory, ForkJoinPool.commonPool());
+        persistence.open(Duration.ofHours(1));
+        return persistence;
+    }
+
+    private static Brand brand() {
+        return Brand.builder().id(UUID.randomUUID()).name("Acme").dateOfEstablishment(new Date(0)).build();
+    }
+
+    private static User user(String login) {
+        return User.builder().id(UUID.randomUUID()).login(login).name(login).build();
+    }
+
+    private static Device device(Brand brand, User user) {
+        return Device.builder()
+                .id(UUID.randomUUID())
+                .name("Phone")
+                .brand(Brand.builder().id(brand.getId()).build())
+                .user(User.builder().id(user.getId()).build())
+                .build();
+    }
+
+}
@@ -0,0 +1,120 @@
+package company.datastore.component;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+import company.user.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWrittenSnapshot() throws IOException {
+        Brand brand = Brand.builder().id(UUID.randomUUID()).name("Żółw").dateOfEstablishment(new Date(0)).build();
+        User kevin = User.builder()
+                .id(UUID.randomUUID())
+                .login("kevin")
+                .name("Kevin")
+                .surname("McCallister")
+                .birthDate(LocalDate.of(1982, 5, 20))
+                .password("$pbkdf2-sha256$i=10000$c2FsdA$aGFzaA")
+                .email("kevin@example.com")
+                .roles(List.of("admin", "user"))
+                .build();
+        Device device = Device.builder()
+                .id(UUID.randomUUID())
+                .name("Phone")
+                .price(100)
+                .brand(Brand.builder().id(brand.getId()).build())
+                .user(User.builder().id(kevin.getId()).build())
+                .mass(150)
+                .deviceType(DeviceType.values()[0])
+                .build();
+        Snapshot snapshot = new Snapshot(42, List.of(brand), List.of(kevin), List.of(device));
+
+        assertThat(writeAndRead(snapshot)).usingRecursiveComparison().isEqualTo(snapshot);
+    }
+
+    @Test
+    void readsNullFieldsAndEmptyCollections() throws IOException {
+        Snapshot snapshot = new Snapshot(0,
+                List.of(Brand.builder().id(UUID.randomUUID()).build()),
+                List.of(User.builder().id(UUID.randomUUID()).build(),
+                        User.builder().id(UUID.randomUUID()).login("").roles(List.of()).build()),
+                List.of(Device.builder().id(UUID.randomUUID()).build()));
+
+        assertThat(writeAndRead(snapshot)).usingRecursiveComparison().isEqualTo(snapshot);
+        assertThat(writeAndRead(new Snapshot(7, List.of(), List.of(), List.of())))
+                .usingRecursiveComparison().isEqualTo(new Snapshot(7, List.of(), List.of(), List.of()));
+    }
+
+    @Test
+    void readsEntitiesSplitIntoManyChunks() throws IOException {
+        List<Device> devices = IntStream.range(0, 65536 * 2 + 1)
+                .<Device>mapToObj(i -> Device.builder().id(new UUID(0, i)).price(i).build())
+                .toList();
+
+        Snapshot read = writeAndRead(new Snapshot(1, List.of(), List.of(), devices));
+
+        assertThat(read.devices()).hasSize(devices.size());
+        assertThat(read.devices()).extracting(Device::getId).containsExactlyElementsOf(
+                devices.stream().map(Device::getId).toList());
+        assertThat(read.devices().get(devices.size() - 1).getPrice()).isEqualTo(65536 * 2);
+    }
+
+    @Test
+    void rejectsFileWithWrongMagic() throws IOException {
+        Path path = write(new Snapshot(1, List.of(), List.of(), List.of()));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[0] ^= 1;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> SnapshotCodec.read(path, ForkJoinPool.commonPool())).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        List<User> users = IntStream.range(0, 100)
+                .<User>mapToObj(i -> User.builder().id(UUID.randomUUID()).login("user" + i).build())
+                .toList();
+        Path path = write(new Snapshot(1, List.of(), users, List.of()));
+        byte[] bytes = Files.readAllBytes(path);
+
+        for (int length : new int[]{0, 10, 24, bytes.length / 2, bytes.length - 1}) {
+            Files.write(path, Arrays.copyOf(bytes, length));
+
+            assertThatThrownBy(() -> SnapshotCodec.read(path, ForkJoinPool.commonPool()))
+                    .as("truncated to %d bytes", length)
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    private Snapshot writeAndRead(Snapshot snapshot) throws IOException {
+        return SnapshotCodec.read(write(snapshot), ForkJoinPool.commonPool());
+    }
+
+    private Path write(Snapshot snapshot) throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        SnapshotCodec.write(snapshot, path);
+        return path;
+    }
+
+}
@@ -0,0 +1,100 @@
+package company.datastore.component;
+
+import company.device.entity.Device;
+import company.serialization.component.CloningUtility;
+import company.user.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotViewTest {
+
+    private DataStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new DataStore(EntityCopyStrategies.register(new CloningUtility()));
+    }
+
+    @Test
+    void streamsStateFromOpeningDespiteLaterChanges() {
+        List<Device> devices = IntStream.range(0, 10)
+                .<Device>mapToObj(i -> Device.builder().id(new UUID(0, i)).name("v0").build())
+                .toList();
+        devices.forEach(store::createDevice);
+
+        List<Device> exported;
+        try (Stream<Device> stream = store.streamDevicesSnapshot()) {
+            Iterator<Device> iterator = stream.iterator();
+            exported = new ArrayList<>(List.of(iterator.next(), iterator.next()));
+            store.updateDevice(devices.get(0).toBuilder().name("v1").build());//already visited
+            store.updateDevice(devices.get(5).toBuilder().name("v1").build());
+            store.deleteDevice(devices.get(7).getId());
+            store.createDevice(Device.builder().id(new UUID(0, 6_000)).name("v1").build());
+            iterator.forEachRemaining(exported::add);
+        }
+
+        assertThat(exported).extracting(Device::getId)
+                .containsExactlyInAnyOrderElementsOf(devices.stream().map(Device::getId).toList());
+        assertThat(exported).extracting(Device::getName).containsOnly("v0");
+        assertThat(store.findAllDevices()).hasSize(10);
+    }
+
+    @Test
+    void streamsStateFromOpeningWhileWritersRun() {
+        List<User> users = IntStream.range(0, 5_000)
+                .<User>mapToObj(i -> User.builder().id(UUID.randomUUID()).login("user" + i).name("v0").build())
+                .toList();
+        users.forEach(store::createUser);
+        CountDownLatch started = new CountDownLatch(1);
+
+        List<User> exported = new ArrayList<>();
+        CompletableFuture<Void> writer;
+        try (Stream<User> stream = store.streamUsersSnapshot()) {
+            writer = CompletableFuture.runAsync(() -> {
+                started.countDown();
+                for (int i = 0; i < users.size(); i++) {
+                    if (i % 3 == 0) {
+                        store.deleteUser(users.get(i).getId());
+                    } else {
+                        store.updateUser(users.get(i).toBuilder().name("v1").build());
+                    }
+                    store.createUser(User.builder().id(UUID.randomUUID()).login("new" + i).name("v1").build());
+                }
+            });
+            Iterator<User> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                if (exported.size() == 100) {
+                    await(started);
+                }
+                exported.add(iterator.next());
+            }
+        }
+        writer.join();
+
+        assertThat(exported).hasSize(users.size());
+        assertThat(exported).extracting(User::getId)
+                .containsExactlyInAnyOrderElementsOf(users.stream().map(User::getId).toList());
+        assertThat(exported).extracting(User::getName).containsOnly("v0");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package company.datastore.component;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void commitsConcurrentRecords() throws IOException {
+        List<CompletableFuture<Long>> durable;
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            durable = IntStream.range(0, 1000).parallel()
+                    .mapToObj(i -> log.append(WriteAheadLog.Operation.DELETE_USER, WriteAheadLog.serialize(i)))
+                    .toList();
+            CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).join();
+
+            assertThat(log.durableSequence()).isEqualTo(1000);
+        }
+
+        assertThat(durable.stream().map(CompletableFuture::join)).doesNotHaveDuplicates().hasSize(1000);
+        List<Serializable> replayed = new ArrayList<>();
+        assertThat(WriteAheadLog.replay(directory, 0, (operation, payload) -> replayed.add(payload))).isEqualTo(1000);
+        assertThat(replayed).hasSize(1000).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void skipsRecordsCoveredBySnapshot() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            appendAll(log, "a", "b", "c");
+        }
+
+        assertThat(replay(1)).containsExactly("b", "c");
+    }
+
+    @Test
+    void truncatesTornTail() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            appendAll(log, "a", "b");
+        }
+        Path segment = onlySegment();
+        long valid = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 7, 7}, StandardOpenOption.APPEND);
+
+        assertThat(replay(0)).containsExactly("a", "b");
+        assertThat(Files.size(segment)).isEqualTo(valid);
+    }
+
+    @Test
+    void truncatesCorruptedRecord() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            appendAll(log, "a", "b", "c");
+        }
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        assertThat(replay(0)).containsExactly("a", "b");
+        assertThat(Files.size(segment)).isLessThan(bytes.length);
+        assertThat(replay(0)).containsExactly("a", "b");
+    }
+
+    @Test
+    void recoversWhenFirstRecordAfterCheckpointIsTorn() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            appendAll(log, "a", "b");
+            assertThat(log.rotate()).isEqualTo(2);
+        }
+        Path torn = directory.resolve("wal-%016x.log".formatted(3));
+        Files.write(torn, new byte[]{0, 0, 0, 9, 1, 2, 3});
+
+        long last = WriteAheadLog.replay(directory, 2, (operation, payload) -> {
+        });
+        assertThat(last).isEqualTo(2);
+        try (WriteAheadLog log = new WriteAheadLog(directory, last + 1)) {
+            appendAll(log, "c");
+        }
+
+        assertThat(replay(2)).containsExactly("c");
+    }
+
+    @Test
+    void deletesOnlySegmentsCoveredBySnapshot() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1)) {
+            appendAll(log, "a", "b");
+            long rotated = log.rotate();
+            appendAll(log, "c");
+
+            log.truncate(rotated);
+        }
+
+        assertThat(segments()).containsExactly(directory.resolve("wal-%016x.log".formatted(3)));
+        assertThat(replay(0)).containsExactly("c");
+    }
+
+    private static void appendAll(WriteAheadLog log, String... payloads) {
+        Stream.of(payloads)
+                .map(payload -> log.append(WriteAheadLog.Operation.DELETE_USER, WriteAheadLog.serialize(payload)))
+                .toList()
+                .forEach(CompletableFuture::join);
+    }
+
+    private List<Serializable> replay(long after) throws IOException {
+        List<Serializable> replayed = new ArrayList<>();
+        WriteAheadLog.replay(directory, after, (operation, payload) -> replayed.add(payload));
+        return replayed;
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.sorted().toList();
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package company.device.repository.jdbc;
+
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+import company.device.repository.api.DeviceFilter;
+import company.repository.api.Page;
+import company.repository.api.Version;
+import company.repository.jdbc.JdbcSupport;
+import company.user.entity.User;
+import company.user.repository.jdbc.UserJdbcRepository;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceJdbcRepositoryTest {
+
+    private BrandJdbcRepository brands;
+
+    private UserJdbcRepository users;
+
+    private DeviceJdbcRepository devices;
+
+    private Brand brand;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcSupport jdbc = new JdbcSupport(dataSource);
+        jdbc.createSchema(BrandJdbcRepository.COLLECTION, UserJdbcRepository.COLLECTION,
+                DeviceJdbcRepository.COLLECTION);
+        brands = new BrandJdbcRepository(jdbc);
+        users = new UserJdbcRepository(jdbc);
+        devices = new DeviceJdbcRepository(jdbc);
+
+        brand = Brand.builder().id(UUID.randomUUID()).name("Acme").dateOfEstablishment(new Date(0)).build();
+        brands.create(brand);
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .login("Kevin")
+                .name("Kevin")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .roles(List.of("user"))
+                .build();
+        users.create(user);
+    }
+
+    private Device device(int price) {
+        return Device.builder()
+                .id(UUID.randomUUID())
+                .name("device " + price)
+                .price(price)
+                .mass(100)
+                .deviceType(price % 2 == 0 ? DeviceType.PHONE : DeviceType.TV)
+                .brand(brand)
+                .user(user)
+                .build();
+    }
+
+    @Test
+    void find_createdDevice_brandJoinedAndUserStub() {
+        Device device = device(10);
+        devices.create(device);
+
+        Device actual = devices.find(device.getId()).orElseThrow();
+
+        assertThat(actual.getName()).isEqualTo(device.getName());
+        assertThat(actual.getBrand()).isEqualTo(brand);
+        assertThat(actual.getUser().getId()).isEqualTo(user.getId());
+        assertThat(devices.findByIdAndUser(device.getId(), user)).isPresent();
+    }
+
+    @Test
+    void findPage_filteredByType_pagedByCursor() {
+        devices.createAll(Stream.of(1, 2, 3, 4, 5, 6).map(this::device).toList());
+        DeviceFilter filter = new DeviceFilter(brand.getId(), DeviceType.PHONE, 3, null);
+
+        Page<Device, UUID> first = devices.findPage(filter, null, 1);
+        Page<Device, UUID> second = devices.findPage(filter, first.next(), 1);
+        Page<Device, UUID> last = devices.findPage(filter, second.next(), 1);
+
+        assertThat(Stream.of(first, second).map(page -> page.elements().get(0).getPrice()))
+                .containsExactlyInAnyOrder(4, 6);
+        assertThat(last.elements()).isEmpty();
+    }
+
+    @Test
+    void find_selectedFields_onlySelectedFieldsSet() {
+        Device device = device(10);
+        devices.create(device);
+
+        Device actual = devices.find(device.getId(), Set.of("name")).orElseThrow();
+
+        assertThat(actual.getName()).isEqualTo(device.getName());
+        assertThat(actual.getId()).isNull();
+        assertThat(actual.getBrand()).isNull();
+    }
+
+    @Test
+    void createAll_duplicatedId_rolledBack() {
+        Device device = device(10);
+        Version version = devices.version();
+
+        assertThatThrownBy(() -> devices.createAll(List.of(device(20), device, device)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(devices.findAll()).isEmpty();
+        assertThat(devices.version()).isEqualTo(version);
+    }
+
+    @Test
+    void delete_user_devicesOrphaned() {
+        Device device = device(10);
+        devices.create(device);
+
+        users.delete(user);
+
+        assertThat(devices.find(device.getId()).orElseThrow().getUser()).isNull();
+        assertThat(users.findByLogin("kevin")).isEmpty();
+    }
+
+}
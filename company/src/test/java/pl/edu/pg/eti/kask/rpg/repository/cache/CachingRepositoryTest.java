@@ -0,0 +1,80 @@
+package company.repository.cache;
+
+import company.datastore.component.DataStore;
+import company.datastore.component.EntityCopyStrategies;
+import company.device.entity.Device;
+import company.device.repository.cache.DeviceCachingRepository;
+import company.device.repository.memory.DeviceInMemoryRepository;
+import company.serialization.component.CloningUtility;
+import company.user.entity.User;
+import company.user.repository.cache.UserCachingRepository;
+import company.user.repository.memory.UserInMemoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingRepositoryTest {
+
+    private UserCachingRepository users;
+
+    private DeviceCachingRepository devices;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        DataStore store = new DataStore(EntityCopyStrategies.register(new CloningUtility()));
+        users = new UserCachingRepository(new UserInMemoryRepository(store), 16);
+        devices = new DeviceCachingRepository(new DeviceInMemoryRepository(store), 16);
+        users.addDependent(devices);
+        user = User.builder().id(UUID.randomUUID()).login("kevin").name("Kevin").build();
+        users.create(user);
+    }
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        User first = users.find(user.getId()).orElseThrow();
+        User second = users.find(user.getId()).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(users.statistics().hits()).isEqualTo(1);
+        assertThat(users.statistics().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void readsUpdatedEntity() {
+        users.find(user.getId());
+
+        users.update(user.toBuilder().name("Stuart").build());
+
+        assertThat(users.find(user.getId())).hasValueSatisfying(found -> assertThat(found.getName()).isEqualTo("Stuart"));
+    }
+
+    @Test
+    void forgetsDeletedEntity() {
+        users.find(user.getId());
+
+        users.delete(user);
+
+        assertThat(users.find(user.getId())).isEmpty();
+    }
+
+    @Test
+    void clearsDependentCacheAfterDelete() {
+        Device device = Device.builder()
+                .id(UUID.randomUUID())
+                .name("Phone")
+                .user(User.builder().id(user.getId()).build())
+                .build();
+        devices.create(device);
+        assertThat(devices.find(device.getId()).orElseThrow().getUser()).isNotNull();
+
+        users.delete(user);
+
+        assertThat(devices.find(device.getId()).orElseThrow().getUser()).isNull();
+    }
+
+}
@@ -0,0 +1,86 @@
+package company.repository.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    private final List<Integer> loaded = new ArrayList<>();
+
+    @Test
+    void evictsLeastRecentlyUsedEntryOfFullSegment() {
+        EntityCache<Integer, String> cache = new EntityCache<>(32);//16 segments of 2 entries, 0, 16 and 32 share one
+        get(cache, 0);
+        get(cache, 16);
+        get(cache, 0);
+
+        get(cache, 32);
+        get(cache, 0);
+        get(cache, 16);
+
+        assertThat(loaded).containsExactly(0, 16, 32, 16);
+        assertThat(cache.statistics()).isEqualTo(new CacheStatistics(2, 4, 2, 2));
+    }
+
+    @Test
+    void keepsAtMostMaximumSizeEntries() {
+        EntityCache<Integer, String> cache = new EntityCache<>(32);
+
+        IntStream.range(0, 1000).forEach(key -> get(cache, key));
+
+        CacheStatistics statistics = cache.statistics();
+        assertThat(statistics.size()).isLessThanOrEqualTo(32);
+        assertThat(statistics.evictions()).isEqualTo(1000 - statistics.size());
+    }
+
+    @Test
+    void reloadsInvalidatedEntries() {
+        EntityCache<Integer, String> cache = new EntityCache<>(32);
+        get(cache, 1);
+        get(cache, 2);
+
+        cache.invalidate(1);
+        get(cache, 1);
+        get(cache, 2);
+        cache.invalidateAll();
+        get(cache, 2);
+
+        assertThat(loaded).containsExactly(1, 2, 1, 2);
+    }
+
+    @Test
+    void doesNotCacheAbsentValues() {
+        EntityCache<Integer, String> cache = new EntityCache<>(32);
+
+        assertThat(cache.get(1, key -> Optional.empty())).isEmpty();
+
+        assertThat(get(cache, 1)).contains("1");
+        assertThat(cache.statistics().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotCacheValueLoadedDuringInvalidation() {
+        EntityCache<Integer, String> cache = new EntityCache<>(32);
+
+        cache.get(1, key -> {
+            cache.invalidate(key);//write completed while the old value was being loaded
+            return Optional.of("stale");
+        });
+
+        assertThat(get(cache, 1)).contains("1");
+    }
+
+    private Optional<String> get(EntityCache<Integer, String> cache, int key) {
+        return cache.get(key, id -> {
+            loaded.add(id);
+            return Optional.of(id.toString());
+        });
+    }
+
+}
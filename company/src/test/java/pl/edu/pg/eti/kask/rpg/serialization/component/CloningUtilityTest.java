@@ -1,5 +1,10 @@
 package company.serialization.component;
 
+import company.datastore.component.EntityCopyStrategies;
+import company.device.entity.Brand;
+import company.device.entity.Device;
+import company.device.entity.DeviceType;
+import company.user.entity.User;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +15,11 @@ import org.junit.jupiter.api.Test;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -57,4 +67,119 @@ class CloningUtilityTest {
         assertThat(actual).isNotSameAs(expected);
     }
 
+    @Test
+    void clone_registeredStrategy_strategyUsed() {
+        AtomicInteger calls = new AtomicInteger();
+        CloningUtility instance = new CloningUtility()
+                .register(Model.class, model -> {
+                    calls.incrementAndGet();
+                    return new Model(model.text, model.number);
+                });
+
+        Model expected = Model.builder()
+                .text("string value")
+                .number(1)
+                .build();
+        Model actual = instance.clone(expected);
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual).isNotSameAs(expected);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void clone_notRegisteredType_serializationFallback() {
+        CloningUtility instance = new CloningUtility()
+                .register(Model.class, model -> model);
+
+        String value = "string object";
+        String actual = instance.clone(value);
+
+        assertThat(actual).isEqualTo(value);
+        assertThat(actual).isNotSameAs(value);
+    }
+
+    @Test
+    void clone_brandWithEntityStrategy_equivalentToSerialization() {
+        CloningUtility serialization = new CloningUtility();
+        CloningUtility strategies = EntityCopyStrategies.register(new CloningUtility());
+
+        Brand expected = brand();
+        Brand actual = strategies.clone(expected);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(serialization.clone(expected));
+        assertThat(actual).isNotSameAs(expected);
+        assertThat(actual.getDateOfEstablishment()).isNotSameAs(expected.getDateOfEstablishment());
+    }
+
+    @Test
+    void clone_userWithEntityStrategy_equivalentToSerialization() {
+        CloningUtility serialization = new CloningUtility();
+        CloningUtility strategies = EntityCopyStrategies.register(new CloningUtility());
+
+        User expected = user();
+        User actual = strategies.clone(expected);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(serialization.clone(expected));
+        assertThat(actual).isNotSameAs(expected);
+        assertThat(actual.getRoles()).isNotSameAs(expected.getRoles());
+    }
+
+    @Test
+    void clone_deviceWithEntityStrategy_equivalentToSerialization() {
+        CloningUtility serialization = new CloningUtility();
+        CloningUtility strategies = EntityCopyStrategies.register(new CloningUtility());
+
+        Device expected = Device.builder()
+                .id(UUID.randomUUID())
+                .name("device")
+                .price(100)
+                .mass(200)
+                .deviceType(DeviceType.TV)
+                .brand(brand())
+                .user(user())
+                .build();
+        Device actual = strategies.clone(expected);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(serialization.clone(expected));
+        assertThat(actual).isNotSameAs(expected);
+        assertThat(actual.getBrand()).isNotSameAs(expected.getBrand());
+        assertThat(actual.getUser()).isNotSameAs(expected.getUser());
+    }
+
+    @Test
+    void clone_deviceWithoutRelationshipsWithEntityStrategy_equivalentToSerialization() {
+        CloningUtility serialization = new CloningUtility();
+        CloningUtility strategies = EntityCopyStrategies.register(new CloningUtility());
+
+        Device expected = Device.builder()
+                .id(UUID.randomUUID())
+                .name("device")
+                .build();
+        Device actual = strategies.clone(expected);
+
+        assertThat(actual).usingRecursiveComparison().isEqualTo(serialization.clone(expected));
+    }
+
+    private static Brand brand() {
+        return Brand.builder()
+                .id(UUID.randomUUID())
+                .name("brand")
+                .dateOfEstablishment(new Date())
+                .build();
+    }
+
+    private static User user() {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .login("login")
+                .name("name")
+                .surname("surname")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .password("password")
+                .email("user@example.com")
+                .roles(List.of("user"))
+                .build();
+    }
+
 }